@@ -0,0 +1,5 @@
+#!/bin/sh
+set -e
+
+# streaming replication for the db-replica service
+echo "host replication all all md5" >> "$PGDATA/pg_hba.conf"
@@ -1,46 +1,120 @@
 package com.agun.security.config;
 
 import com.agun.security.repository.UserRepository;
+import com.agun.security.security.AuthMetrics;
+import com.agun.security.security.BCryptStrengthCalibrator;
+import com.agun.security.security.PasswordHashingExecutor;
+import com.agun.security.security.PooledPasswordEncoder;
+import com.agun.security.security.TimedPasswordEncoder;
+import com.agun.security.security.TokenManager;
+import com.agun.security.security.UserCredentials;
+import com.agun.security.security.UserDetailsCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 @Configuration
+@EnableScheduling
+@EnableConfigurationProperties({JwtProperties.class, UserCacheProperties.class, PasswordProperties.class, RateLimitProperties.class,
+        UserImportProperties.class})
 @RequiredArgsConstructor
 public class ApplicationConfig {
+
+    // the {id} prefixes a stored hash may carry, imported hashes are checked against them
+    public static final Set<String> PASSWORD_ENCODING_IDS = Set.of("bcrypt", "pbkdf2@SpringSecurity_v5_8");
+
     private final UserRepository userRepository;
 
+    private final UserCacheProperties userCacheProperties;
+
+    private final PasswordProperties passwordProperties;
+
+    private final AuthMetrics authMetrics;
+
     @Bean
-    public UserDetailsService userDetailsService() {
-        return username ->
-                userRepository.findByEmail(username)
-                        .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    public UserDetailsCache userDetailsService() {
+        UserDetailsService repositoryLookup = username -> {
+            final long start = System.nanoTime();
+            final Optional<UserCredentials> user;
+            try {
+                // compact tokens carry the user id, login forms and older tokens the email
+                final UUID userId = TokenManager.userIdOf(username);
+                user = userId != null
+                        ? userRepository.findCredentialsById(userId)
+                        : userRepository.findCredentialsByEmail(username);
+            } catch (RuntimeException e) {
+                authMetrics.userLookup(AuthMetrics.LookupOutcome.ERROR, System.nanoTime() - start);
+                throw e;
+            }
+            authMetrics.userLookup(user.isPresent() ? AuthMetrics.LookupOutcome.FOUND : AuthMetrics.LookupOutcome.NOT_FOUND,
+                    System.nanoTime() - start);
+            return user.orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        };
+        final UserDetailsCache cache = new UserDetailsCache(
+                repositoryLookup, userCacheProperties.getMaximumSize(), userCacheProperties.getTtl());
+        authMetrics.userCache(cache);
+        return cache;
     }
 
     @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
     public AuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
         daoAuthenticationProvider.setUserDetailsService(userDetailsService());
-        daoAuthenticationProvider.setPasswordEncoder(getPasswordEncoder());
+        // the user lookup stays on the request thread, only the hash check takes a pool thread
+        daoAuthenticationProvider.setPasswordEncoder(new PooledPasswordEncoder(getPasswordEncoder(), passwordHashingExecutor()));
         return daoAuthenticationProvider;
     }
 
     @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
     public AuthenticationManager authenticationManager(AuthenticationConfiguration authenticationConfiguration) throws Exception {
         return authenticationConfiguration.getAuthenticationManager();
     }
 
+    @Bean(destroyMethod = "shutdown")
+    public PasswordHashingExecutor passwordHashingExecutor() {
+        return new PasswordHashingExecutor(
+                passwordProperties.getHashingThreads(),
+                passwordProperties.getHashingQueueCapacity(),
+                passwordProperties.getRetryAfter()
+        );
+    }
+
     @Bean
     public PasswordEncoder getPasswordEncoder() {
-            return new BCryptPasswordEncoder();
+        final int strength = passwordProperties.getStrength() != null
+                ? passwordProperties.getStrength()
+                : BCryptStrengthCalibrator.calibrate(
+                        passwordProperties.getTargetVerifyTime(),
+                        passwordProperties.getMinimumStrength());
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(strength));
+        encoders.put("pbkdf2@SpringSecurity_v5_8", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(passwordProperties.getEncodingId(), encoders);
+        // hashes stored before the {id} prefix was introduced are plain BCrypt
+        passwordEncoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder(strength));
+        return new TimedPasswordEncoder(passwordEncoder, authMetrics);
     }
 }
@@ -0,0 +1,72 @@
+package com.agun.security.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boot backs off its JDBC DataSource as soon as an R2DBC ConnectionFactory exists. JPA,
+ * Flyway and the JdbcTemplate based services need it in both stacks, so it is declared here
+ * from the usual {@code spring.datasource} properties. With {@code application.datasource.replicas}
+ * set, the DataSource everyone gets routes read-only transactions to the replicas.
+ */
+@Configuration
+@EnableConfigurationProperties({DataSourceProperties.class, ReplicaProperties.class})
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            DataSourceProperties properties,
+            ReplicaProperties replicaProperties
+    ) {
+        final List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaProperties.getReplicas().size(); i++) {
+            final ReplicaProperties.Replica replica = replicaProperties.getReplicas().get(i);
+            // same pool settings as the primary
+            final HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setPoolName("replica-" + i);
+            config.setJdbcUrl(replica.getUrl());
+            config.setUsername(StringUtils.hasText(replica.getUsername()) ? replica.getUsername() : properties.determineUsername());
+            config.setPassword(StringUtils.hasText(replica.getPassword()) ? replica.getPassword() : properties.determinePassword());
+            config.setReadOnly(true);
+            // a replica that is down at startup only delays its first reads
+            config.setInitializationFailTimeout(-1);
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            HikariDataSource primaryDataSource,
+            ReplicaRoutingDataSource replicaRoutingDataSource,
+            ReplicaProperties replicaProperties
+    ) {
+        if (replicaProperties.getReplicas().isEmpty()) {
+            return primaryDataSource;
+        }
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,83 @@
+package com.agun.security.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "application.security.jwt")
+public class JwtProperties {
+
+    // key id used for signing new tokens, must be present in keys
+    private String activeKeyId;
+
+    // key id -> base64 encoded HMAC secret, every entry keeps verifying until removed
+    private Map<String, String> keys = new LinkedHashMap<>();
+
+    // key id -> asymmetric key pair, public halves are published on /.well-known/jwks.json
+    private Map<String, KeyPairProperties> keyPairs = new LinkedHashMap<>();
+
+    // JWKS of another issuer, consulted only for key ids that are not configured locally
+    private String jwksUri;
+
+    // minimum delay between two background JWKS downloads triggered by unknown key ids, which
+    // are also rejected without a lookup for this long
+    private Duration jwksRefreshInterval = Duration.ofSeconds(30);
+
+    private Duration accessTokenTtl = Duration.ofMinutes(15);
+
+    private Duration refreshTokenTtl = Duration.ofDays(14);
+
+    // a session ends this long after login however often it is refreshed
+    private Duration refreshSessionMaxAge = Duration.ofDays(90);
+
+    // embed user id, role and permission bits in tokens and authenticate from claims without a user lookup
+    private boolean stateless = false;
+
+    // issue short tokens (user id subject, role code, no iat) and verify HMAC ones on a fixed-shape fast path
+    private boolean compact = false;
+
+    private VerificationCache verificationCache = new VerificationCache();
+
+    private Revocation revocation = new Revocation();
+
+    @Data
+    public static class KeyPairProperties {
+
+        // ES256 or EdDSA
+        private String algorithm = "ES256";
+
+        // base64 PKCS#8 and X.509 DER, a throwaway pair is generated when both are empty
+        private String privateKey;
+
+        private String publicKey;
+    }
+
+    @Data
+    public static class VerificationCache {
+
+        private boolean enabled = false;
+
+        private int maximumSize = 10_000;
+
+        // upper bound per entry, an entry never outlives the token exp claim
+        private Duration ttl = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Revocation {
+
+        // sizes the Bloom filter, it is rebuilt larger when exceeded
+        private int expectedRevocations = 100_000;
+
+        private double falsePositiveRate = 0.01;
+
+        // how often revocations made on other nodes are pulled from the database
+        private Duration syncInterval = Duration.ofSeconds(10);
+
+        private Duration purgeInterval = Duration.ofMinutes(10);
+    }
+}
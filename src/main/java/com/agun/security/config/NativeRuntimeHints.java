@@ -0,0 +1,89 @@
+package com.agun.security.config;
+
+import com.agun.security.dto.AuthenticationResponse;
+import com.agun.security.dto.DefaultResponse;
+import com.agun.security.dto.LoginRequest;
+import com.agun.security.dto.RefreshRequest;
+import com.agun.security.dto.RegisterRequest;
+import com.agun.security.dto.UserImportReport;
+import com.agun.security.dto.UserImportResult;
+import com.agun.security.dto.UserImportRow;
+import com.agun.security.model.RefreshToken;
+import com.agun.security.model.User;
+import com.agun.security.security.UserCredentials;
+import com.zaxxer.hikari.HikariConfig;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+/**
+ * Reflection a native image cannot discover on its own. jjwt-api finds its implementation by
+ * class name, the import reads {@link UserImportRow} through an {@code ObjectReader} rather than
+ * a {@code @RequestBody}, and Hibernate instantiates {@link UserCredentials} for a JPQL
+ * constructor expression. Also registered in the JVM build, where it costs nothing.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    // looked up with Classes.newInstance / Classes.forName from jjwt-api
+    private static final String[] JJWT_IMPLEMENTATION = {
+            "io.jsonwebtoken.impl.DefaultClaims",
+            "io.jsonwebtoken.impl.DefaultClaimsBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtHeaderBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.io.StandardCompressionAlgorithms",
+            "io.jsonwebtoken.impl.security.DefaultDynamicJwkBuilder",
+            "io.jsonwebtoken.impl.security.DefaultJwkParserBuilder",
+            "io.jsonwebtoken.impl.security.DefaultJwkSetBuilder",
+            "io.jsonwebtoken.impl.security.DefaultJwkSetParserBuilder",
+            "io.jsonwebtoken.impl.security.DefaultKeyOperationBuilder",
+            "io.jsonwebtoken.impl.security.DefaultKeyOperationPolicyBuilder",
+            "io.jsonwebtoken.impl.security.JwksBridge",
+            "io.jsonwebtoken.impl.security.KeysBridge",
+            "io.jsonwebtoken.impl.security.StandardCurves",
+            "io.jsonwebtoken.impl.security.StandardEncryptionAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardHashAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyOperations",
+            "io.jsonwebtoken.impl.security.StandardSecureDigestAlgorithms",
+            // ServiceLoader providers of jjwt-jackson
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+    };
+
+    private static final Class<?>[] JSON_BODIES = {
+            AuthenticationResponse.class,
+            DefaultResponse.class,
+            LoginRequest.class,
+            RefreshRequest.class,
+            RegisterRequest.class,
+            UserImportReport.class,
+            UserImportResult.class,
+            UserImportRow.class
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (String type : JJWT_IMPLEMENTATION) {
+            hints.reflection().registerType(TypeReference.of(type),
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        hints.reflection().registerType(Jwts.class, MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.DECLARED_FIELDS);
+        hints.reflection().registerType(Claims.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), JSON_BODIES);
+
+        for (Class<?> entity : new Class<?>[]{User.class, RefreshToken.class}) {
+            hints.reflection().registerType(entity, MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+        hints.reflection().registerType(UserCredentials.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+
+        // HikariDataSource.copyStateTo, used for the replica pools, copies fields reflectively
+        hints.reflection().registerType(HikariConfig.class, MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_PUBLIC_METHODS);
+    }
+}
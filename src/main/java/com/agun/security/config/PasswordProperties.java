@@ -0,0 +1,29 @@
+package com.agun.security.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "application.security.password")
+public class PasswordProperties {
+
+    // id written as the {id} prefix of new hashes, older ids keep matching and get upgraded on login
+    private String encodingId = "bcrypt";
+
+    // fixed BCrypt log rounds, when empty they are calibrated at startup from target-verify-time
+    private Integer strength;
+
+    private Duration targetVerifyTime = Duration.ofMillis(250);
+
+    private int minimumStrength = 10;
+
+    // threads doing BCrypt work, 0 means one per available core
+    private int hashingThreads = 0;
+
+    // hashing requests allowed to wait, beyond this login and register answer 429
+    private int hashingQueueCapacity = 64;
+
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
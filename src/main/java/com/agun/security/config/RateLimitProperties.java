@@ -0,0 +1,37 @@
+package com.agun.security.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "application.security.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // login and register calls per client address
+    private Limit perIp = new Limit(20, Duration.ofMinutes(1));
+
+    // login and register calls naming the same email, from any address
+    private Limit perEmail = new Limit(5, Duration.ofMinutes(1));
+
+    // keys tracked per limiter, a full table answers 429 for new keys until idle ones are evicted
+    private int maximumKeys = 100_000;
+
+    private Duration evictionInterval = Duration.ofMinutes(1);
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+
+        // also the burst, a bucket holds this many requests when full
+        private int requests;
+
+        private Duration period;
+    }
+}
@@ -0,0 +1,72 @@
+package com.agun.security.config;
+
+import com.agun.security.constant.Permission;
+import com.agun.security.security.AuthMetrics;
+import com.agun.security.security.AuthRateLimiter;
+import com.agun.security.security.JwtWebFilter;
+import com.agun.security.security.PermissionAuthorizationManager;
+import com.agun.security.security.RateLimitWebFilter;
+import com.agun.security.security.TokenManager;
+import com.agun.security.security.TokenRevocationService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+/**
+ * Security for {@code spring.main.web-application-type=reactive}, mirrors {@link SecurityConfig}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableWebFluxSecurity
+public class ReactiveSecurityConfig {
+
+    // Tomcat is on the classpath for the servlet stack and Boot would otherwise prefer it
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(
+            ServerHttpSecurity http,
+            TokenManager tokenManager,
+            ReactiveUserDetailsService userDetailsService,
+            TokenRevocationService revocationService,
+            AuthMetrics metrics,
+            AuthRateLimiter rateLimiter
+    ) {
+        http
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .logout(ServerHttpSecurity.LogoutSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .authorizeExchange(exchange -> exchange
+                        .pathMatchers(SecurityConfig.PUBLIC_PATHS)
+                        .permitAll()
+                        .pathMatchers(SecurityConfig.METRICS_PATHS)
+                        .access(PermissionAuthorizationManager.requires(Permission.METRICS_READ))
+                        .pathMatchers(SecurityConfig.ADMIN_PATHS)
+                        .access(PermissionAuthorizationManager.requires(Permission.USERS_MANAGE))
+                        .pathMatchers(SecurityConfig.ACCOUNT_PATHS)
+                        .access(PermissionAuthorizationManager.requires(Permission.ACCOUNT_READ))
+                        .anyExchange()
+                        .authenticated())
+                // same status as the servlet chain's default entry point
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN)))
+                .addFilterBefore(new RateLimitWebFilter(rateLimiter), SecurityWebFiltersOrder.AUTHENTICATION)
+                .addFilterAt(new JwtWebFilter(tokenManager, userDetailsService, revocationService, metrics),
+                        SecurityWebFiltersOrder.AUTHENTICATION);
+        return http.build();
+    }
+}
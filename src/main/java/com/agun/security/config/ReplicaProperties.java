@@ -0,0 +1,30 @@
+package com.agun.security.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "application.datasource")
+public class ReplicaProperties {
+
+    // read replicas of spring.datasource, read-only transactions are spread over the healthy ones
+    private List<Replica> replicas = new ArrayList<>();
+
+    // a replica that fails a check or a connection attempt gets reads again after its next good check
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    @Data
+    public static class Replica {
+
+        private String url;
+
+        // the primary's credentials when empty
+        private String username;
+
+        private String password;
+    }
+}
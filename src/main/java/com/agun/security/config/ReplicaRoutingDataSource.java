@@ -0,0 +1,164 @@
+package com.agun.security.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to the healthy replicas in turn and everything else to the
+ * primary. A web request that has used a read-write transaction keeps reading from the
+ * primary until it ends, so it sees its own writes whatever the replication lag. The mark is a
+ * request attribute rather than a thread local: work outside a request, such as scheduled
+ * jobs or the hashing pool, never pins its pooled thread to the primary. A replica that refuses a connection is taken out at once and the read
+ * falls back to the primary; the health check puts it back. Must sit behind a
+ * {@code LazyConnectionDataSourceProxy}, so the connection is only chosen once the
+ * transaction's read-only flag is set.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private static final String PRIMARY = "primary";
+
+    private static final String WROTE = ReplicaRoutingDataSource.class.getName() + ".WROTE";
+
+    private final DataSource primary;
+    private final Map<String, Replica> replicas = new HashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    private volatile Replica[] healthy;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources) {
+        this.primary = primary;
+        final Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            final Replica replica = new Replica("replica-" + i, replicaDataSources.get(i));
+            this.replicas.put(replica.name, replica);
+            targets.put(replica.name, replica.dataSource);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+        this.healthy = this.replicas.values().toArray(Replica[]::new);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || wroteInThisRequest()) {
+            return PRIMARY;
+        }
+        final Replica[] candidates = this.healthy;
+        if (candidates.length == 0) {
+            return PRIMARY;
+        }
+        return candidates[Math.floorMod(next.getAndIncrement(), candidates.length)].name;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final Object key = determineCurrentLookupKey();
+        final Replica replica = replicas.get(key);
+        if (replica == null) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()
+                    && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                markWrote();
+            }
+            return primary.getConnection();
+        }
+        try {
+            return replica.dataSource.getConnection();
+        } catch (SQLException e) {
+            markDown(replica, e);
+            return primary.getConnection();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.datasource.health-check-interval:PT5S}")
+    public void checkReplicas() {
+        boolean changed = false;
+        for (Replica replica : replicas.values()) {
+            boolean up;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                up = connection.isValid(1);
+            } catch (SQLException e) {
+                up = false;
+            }
+            if (up != replica.up) {
+                replica.up = up;
+                changed = true;
+                log.info("Replica {} is {}", replica.name, up ? "up, taking reads" : "down, reads go to the primary");
+            }
+        }
+        if (changed) {
+            refreshHealthy();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Replica replica : replicas.values()) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static boolean wroteInThisRequest() {
+        final RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        return request != null && request.getAttribute(WROTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+
+    private static void markWrote() {
+        final RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.setAttribute(WROTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    private void markDown(Replica replica, SQLException e) {
+        synchronized (replica) {
+            if (!replica.up) {
+                return;
+            }
+            replica.up = false;
+        }
+        log.warn("Replica {} refused a connection, reads go to the primary: {}", replica.name, e.getMessage());
+        refreshHealthy();
+    }
+
+    private synchronized void refreshHealthy() {
+        final List<Replica> up = new ArrayList<>();
+        for (Replica replica : replicas.values()) {
+            if (replica.up) {
+                up.add(replica);
+            }
+        }
+        this.healthy = up.toArray(Replica[]::new);
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean up = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
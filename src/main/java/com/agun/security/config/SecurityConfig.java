@@ -1,7 +1,11 @@
 package com.agun.security.config;
 
+import com.agun.security.constant.Permission;
 import com.agun.security.security.JwtSecurityFilter;
+import com.agun.security.security.PermissionAuthorizationManager;
+import com.agun.security.security.RateLimitFilter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationProvider;
@@ -13,28 +17,45 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @EnableWebSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    static final String[] PUBLIC_PATHS = {"/api/auth/register", "/api/auth/login", "/api/auth/refresh", "/.well-known/jwks.json",
+            "/actuator/health"};
+
+    static final String[] METRICS_PATHS = {"/actuator/prometheus"};
+
+    static final String[] ADMIN_PATHS = {"/api/admin/**"};
+
+    static final String[] ACCOUNT_PATHS = {"/api/users/**"};
+
     private final JwtSecurityFilter jwtSecurityFilter;
 
+    private final RateLimitFilter rateLimitFilter;
+
     private final AuthenticationProvider authenticationProvider;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
-        String[] requestPath = new String[]{"/api/auth/register", "/api/auth/login"};
-
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests((authorize) -> authorize
-                        .requestMatchers(requestPath)
+                        .requestMatchers(PUBLIC_PATHS)
                         .permitAll()
+                        .requestMatchers(METRICS_PATHS)
+                        .access(PermissionAuthorizationManager.requires(Permission.METRICS_READ))
+                        .requestMatchers(ADMIN_PATHS)
+                        .access(PermissionAuthorizationManager.requires(Permission.USERS_MANAGE))
+                        .requestMatchers(ACCOUNT_PATHS)
+                        .access(PermissionAuthorizationManager.requires(Permission.ACCOUNT_READ))
                         .anyRequest()
                         .authenticated())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authenticationProvider(authenticationProvider)
-                .addFilterBefore(jwtSecurityFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtSecurityFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(rateLimitFilter, JwtSecurityFilter.class);
         return http.build();
     }
 }
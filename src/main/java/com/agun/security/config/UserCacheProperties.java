@@ -0,0 +1,16 @@
+package com.agun.security.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "application.security.user-cache")
+public class UserCacheProperties {
+
+    // 0 disables caching, loads are still single-flight
+    private int maximumSize = 1000;
+
+    private Duration ttl = Duration.ofMinutes(5);
+}
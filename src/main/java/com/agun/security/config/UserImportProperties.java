@@ -0,0 +1,12 @@
+package com.agun.security.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "application.security.user-import")
+public class UserImportProperties {
+
+    // rows per duplicate check query and per JDBC insert batch
+    private int batchSize = 500;
+}
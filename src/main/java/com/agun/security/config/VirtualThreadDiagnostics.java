@@ -0,0 +1,55 @@
+package com.agun.security.config;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * In virtual thread mode, streams JFR {@code jdk.VirtualThreadPinned} events and logs where a
+ * carrier thread stayed pinned, typically a blocking call inside a synchronized block
+ * (driver, pool or our own code). Requires Java 21; on older runtimes no event is ever emitted.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadDiagnostics {
+
+    private final Duration pinnedThreshold;
+
+    private RecordingStream recordingStream;
+
+    public VirtualThreadDiagnostics(@Value("${application.threads.pinned-threshold:PT0.02S}") Duration pinnedThreshold) {
+        this.pinnedThreshold = pinnedThreshold;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable("jdk.VirtualThreadPinned").withThreshold(pinnedThreshold).withStackTrace();
+        recordingStream.onEvent("jdk.VirtualThreadPinned", this::logPinned);
+        recordingStream.startAsync();
+        log.info("Virtual thread mode, reporting pins longer than {} ms", pinnedThreshold.toMillis());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    private void logPinned(RecordedEvent event) {
+        log.warn("Virtual thread pinned for {} ms on {}\n{}",
+                event.getDuration().toMillis(),
+                event.getThread() == null ? "unknown" : event.getThread().getJavaName(),
+                event.getStackTrace());
+    }
+}
@@ -0,0 +1,40 @@
+package com.agun.security.constant;
+
+/**
+ * Fine-grained rights behind the roles. Each permission is one bit of a {@code long} mask, so
+ * at most 64 of them fit; append new ones at the end, as the bit positions are stored in
+ * issued tokens.
+ */
+public enum Permission {
+    ACCOUNT_READ("account:read"),
+    USERS_MANAGE("users:manage"),
+    METRICS_READ("metrics:read");
+
+    private final String authority;
+    private final long bit;
+
+    Permission(String authority) {
+        this.authority = authority;
+        this.bit = 1L << ordinal();
+    }
+
+    public String authority() {
+        return this.authority;
+    }
+
+    public long bit() {
+        return this.bit;
+    }
+
+    public static long maskOf(Permission... permissions) {
+        long mask = 0;
+        for (Permission permission : permissions) {
+            mask |= permission.bit;
+        }
+        return mask;
+    }
+
+    public static boolean grants(long mask, long required) {
+        return (mask & required) == required;
+    }
+}
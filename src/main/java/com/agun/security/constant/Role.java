@@ -1,6 +1,73 @@
 package com.agun.security.constant;
 
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public enum Role {
-    USER,
-    ADMIN
+    USER(0, Permission.ACCOUNT_READ),
+    ADMIN(1, Permission.values());
+
+    // carried by compact tokens instead of the name, never reuse a retired code
+    private final int code;
+
+    private final long permissions;
+
+    // the role name and one authority per permission, built once and shared by every principal
+    private final List<GrantedAuthority> authorities;
+
+    // tokens issued before the role's permissions changed keep the mask they were issued with
+    private final Map<Long, List<GrantedAuthority>> issuedAuthorities = new ConcurrentHashMap<>();
+
+    Role(int code, Permission... permissions) {
+        this.code = code;
+        this.permissions = Permission.maskOf(permissions);
+        this.authorities = toAuthorities(this.permissions);
+    }
+
+    public int code() {
+        return this.code;
+    }
+
+    /**
+     * @return the role with this code, or null for a code this build does not know
+     */
+    public static Role ofCode(int code) {
+        for (Role role : values()) {
+            if (role.code == code) {
+                return role;
+            }
+        }
+        return null;
+    }
+
+    public long permissions() {
+        return this.permissions;
+    }
+
+    public List<GrantedAuthority> authorities() {
+        return this.authorities;
+    }
+
+    public List<GrantedAuthority> authorities(long permissions) {
+        if (permissions == this.permissions) {
+            return this.authorities;
+        }
+        return issuedAuthorities.computeIfAbsent(permissions, this::toAuthorities);
+    }
+
+    private List<GrantedAuthority> toAuthorities(long permissions) {
+        final List<GrantedAuthority> authorities = new ArrayList<>();
+        authorities.add(new SimpleGrantedAuthority(name()));
+        for (Permission permission : Permission.values()) {
+            if (Permission.grants(permissions, permission.bit())) {
+                authorities.add(new SimpleGrantedAuthority(permission.authority()));
+            }
+        }
+        return List.copyOf(authorities);
+    }
 }
@@ -3,16 +3,22 @@ package com.agun.security.controller;
 import com.agun.security.dto.AuthenticationResponse;
 import com.agun.security.dto.DefaultResponse;
 import com.agun.security.dto.LoginRequest;
+import com.agun.security.dto.RefreshRequest;
 import com.agun.security.dto.RegisterRequest;
+import com.agun.security.security.AuthenticatedUser;
+import com.agun.security.security.VerifiedToken;
 import com.agun.security.service.AuthService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
 public class AuthenticationController {
@@ -31,4 +37,21 @@ public class AuthenticationController {
         return ResponseEntity.status(200).body(response);
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<DefaultResponse<AuthenticationResponse>> refresh(@RequestBody RefreshRequest request) {
+        DefaultResponse<AuthenticationResponse> response = this.authService.refresh(request);
+        return ResponseEntity.status(200).body(response);
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(Authentication authentication,
+                                       @RequestBody(required = false) RefreshRequest request) {
+        if (!(authentication.getCredentials() instanceof VerifiedToken accessToken)
+                || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
+            throw new IllegalArgumentException("Logout requires a bearer token");
+        }
+        this.authService.logout(accessToken, user.getId(), request == null ? null : request.getRefreshToken());
+        return ResponseEntity.noContent().build();
+    }
+
 }
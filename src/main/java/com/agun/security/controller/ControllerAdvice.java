@@ -1,8 +1,11 @@
 package com.agun.security.controller;
 
 import com.agun.security.dto.DefaultResponse;
+import com.agun.security.exception.InvalidTokenException;
+import com.agun.security.exception.TooManyRequestsException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.coyote.BadRequestException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
@@ -52,4 +55,26 @@ public class ControllerAdvice {
                 .build();
         return ResponseEntity.badRequest().body(response);
     }
+
+    @ExceptionHandler({TooManyRequestsException.class})
+    public ResponseEntity<DefaultResponse<Object>> handleTooManyRequests(TooManyRequestsException exception) {
+        DefaultResponse<Object> response = DefaultResponse.builder()
+                .status(HttpStatus.TOO_MANY_REQUESTS.name())
+                .message(exception.getMessage())
+                .data(null)
+                .build();
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, exception.getRetryAfter().toSeconds())))
+                .body(response);
+    }
+
+    @ExceptionHandler({InvalidTokenException.class})
+    public ResponseEntity<DefaultResponse<Object>> handleInvalidToken(InvalidTokenException exception) {
+        DefaultResponse<Object> response = DefaultResponse.builder()
+                .status(HttpStatus.UNAUTHORIZED.name())
+                .message(exception.getMessage())
+                .data(null)
+                .build();
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+    }
 }
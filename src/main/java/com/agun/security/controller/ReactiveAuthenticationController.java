@@ -0,0 +1,58 @@
+package com.agun.security.controller;
+
+import com.agun.security.dto.AuthenticationResponse;
+import com.agun.security.dto.DefaultResponse;
+import com.agun.security.dto.LoginRequest;
+import com.agun.security.dto.RefreshRequest;
+import com.agun.security.dto.RegisterRequest;
+import com.agun.security.security.AuthenticatedUser;
+import com.agun.security.security.VerifiedToken;
+import com.agun.security.service.ReactiveAuthService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+public class ReactiveAuthenticationController {
+
+    private final ReactiveAuthService authService;
+
+    @PostMapping("/register")
+    public Mono<ResponseEntity<DefaultResponse<AuthenticationResponse>>> register(@RequestBody RegisterRequest request) {
+        return this.authService.register(request)
+                .map(response -> ResponseEntity.status(201).body(response));
+    }
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<DefaultResponse<AuthenticationResponse>>> login(@RequestBody LoginRequest request) {
+        return this.authService.login(request)
+                .map(response -> ResponseEntity.status(200).body(response));
+    }
+
+    @PostMapping("/refresh")
+    public Mono<ResponseEntity<DefaultResponse<AuthenticationResponse>>> refresh(@RequestBody RefreshRequest request) {
+        return this.authService.refresh(request)
+                .map(response -> ResponseEntity.status(200).body(response));
+    }
+
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<Void>> logout(Authentication authentication,
+                                             @RequestBody(required = false) RefreshRequest request) {
+        if (!(authentication.getCredentials() instanceof VerifiedToken accessToken)
+                || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
+            return Mono.error(new IllegalArgumentException("Logout requires a bearer token"));
+        }
+        return this.authService.logout(accessToken, user.getId(), request == null ? null : request.getRefreshToken())
+                .thenReturn(ResponseEntity.noContent().build());
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.agun.security.controller;
+
+import com.agun.security.dto.DefaultResponse;
+import com.agun.security.dto.UserImportReport;
+import com.agun.security.service.UserImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static java.util.Collections.singletonList;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/admin/users")
+@RequiredArgsConstructor
+public class UserImportController {
+
+    private final UserImportService userImportService;
+
+    // the body is read as a stream, never bound whole
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<DefaultResponse<UserImportReport>> importJson(InputStream body) throws IOException {
+        return respond(this.userImportService.importJson(body));
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<DefaultResponse<UserImportReport>> importCsv(InputStream body) throws IOException {
+        return respond(this.userImportService.importCsv(body));
+    }
+
+    private static ResponseEntity<DefaultResponse<UserImportReport>> respond(UserImportReport report) {
+        DefaultResponse<UserImportReport> response = DefaultResponse.<UserImportReport>builder()
+                .status(HttpStatus.Series.SUCCESSFUL.name())
+                .message(HttpStatus.OK.name())
+                .data(singletonList(report))
+                .build();
+        return ResponseEntity.ok(response);
+    }
+}
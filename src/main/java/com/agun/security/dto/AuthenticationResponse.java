@@ -8,4 +8,5 @@ import lombok.*;
 @AllArgsConstructor
 public class AuthenticationResponse {
     private String token;
+    private String refreshToken;
 }
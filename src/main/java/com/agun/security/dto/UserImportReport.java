@@ -0,0 +1,19 @@
+package com.agun.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportReport {
+    private int imported;
+    private int duplicates;
+    private int invalid;
+    private List<UserImportResult> rows;
+}
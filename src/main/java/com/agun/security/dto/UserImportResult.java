@@ -0,0 +1,25 @@
+package com.agun.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportResult {
+
+    // 1-based position of the record in the import, the CSV header not counted
+    private int row;
+    private String email;
+    private Status status;
+    private String message;
+
+    public enum Status {
+        IMPORTED,
+        DUPLICATE,
+        INVALID
+    }
+}
@@ -0,0 +1,24 @@
+package com.agun.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One user of a bulk import, a JSON array element or a CSV record with a header line.
+ * Either {@code password} is hashed on import, or {@code passwordHash} carries a hash with
+ * its {@code {id}} prefix from another system and is stored as is.
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportRow {
+    private String firstName;
+    private String lastName;
+    private String email;
+    private String password;
+    private String passwordHash;
+    private String role;
+}
@@ -0,0 +1,30 @@
+package com.agun.security.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveRefreshTokenRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<Void> insert(UUID userId, String tokenHash, Instant createdAt, Instant expiresAt) {
+        return this.databaseClient
+                .sql("INSERT INTO refresh_tokens (id, user_id, token_hash, created_at, expires_at) " +
+                        "VALUES (:id, :userId, :tokenHash, :createdAt, :expiresAt)")
+                .bind("id", UUID.randomUUID())
+                .bind("userId", userId)
+                .bind("tokenHash", tokenHash)
+                .bind("createdAt", createdAt)
+                .bind("expiresAt", expiresAt)
+                .then();
+    }
+}
@@ -0,0 +1,82 @@
+package com.agun.security.repository;
+
+import com.agun.security.constant.Role;
+import com.agun.security.model.User;
+import com.agun.security.security.UserCredentials;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * R2DBC counterpart of {@link UserRepository} for the reactive stack, same table and the
+ * same lower(email) lookups.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveUserRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<UserCredentials> findCredentialsByEmail(String email) {
+        return this.databaseClient
+                .sql("SELECT id, email, password, role FROM users WHERE lower(email) = lower(:email)")
+                .bind("email", email)
+                .map(ReactiveUserRepository::toCredentials)
+                .one();
+    }
+
+    public Mono<UserCredentials> findCredentialsById(UUID id) {
+        return this.databaseClient
+                .sql("SELECT id, email, password, role FROM users WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveUserRepository::toCredentials)
+                .one();
+    }
+
+    /**
+     * Inserts the user, emitting {@code false} when the unique index on lower(email) already
+     * holds the address.
+     */
+    public Mono<Boolean> insert(User user) {
+        DatabaseClient.GenericExecuteSpec spec = this.databaseClient
+                .sql("INSERT INTO users (id, first_name, last_name, email, password, role) " +
+                        "VALUES (:id, :firstName, :lastName, :email, :password, :role) ON CONFLICT DO NOTHING")
+                .bind("id", user.getId())
+                .bind("email", user.getEmail())
+                .bind("password", user.getPassword())
+                .bind("role", user.getRole().name());
+        // names are optional at registration, and bind rejects a null value
+        spec = bindNullable(spec, "firstName", user.getFirstName());
+        spec = bindNullable(spec, "lastName", user.getLastName());
+        return spec
+                .fetch()
+                .rowsUpdated()
+                .map(rows -> rows > 0);
+    }
+
+    public Mono<Void> updatePassword(UUID id, String password) {
+        return this.databaseClient
+                .sql("UPDATE users SET password = :password WHERE id = :id")
+                .bind("password", password)
+                .bind("id", id)
+                .then();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name, String value) {
+        return value == null ? spec.bindNull(name, String.class) : spec.bind(name, value);
+    }
+
+    private static UserCredentials toCredentials(Readable row) {
+        return new UserCredentials(
+                row.get("id", UUID.class),
+                row.get("email", String.class),
+                row.get("password", String.class),
+                Role.valueOf(row.get("role", String.class)));
+    }
+}
@@ -0,0 +1,55 @@
+package com.agun.security.repository;
+
+import com.agun.security.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+
+    @Query("select t from RefreshToken t join fetch t.user where t.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHash(@Param("tokenHash") String tokenHash);
+
+    // compare-and-set on the current hash so a token can only be rotated once
+    @Transactional
+    @Modifying
+    @Query("update RefreshToken t set t.tokenHash = :nextHash, t.expiresAt = :expiresAt " +
+            "where t.id = :id and t.tokenHash = :currentHash")
+    int rotate(@Param("id") UUID id,
+               @Param("currentHash") String currentHash,
+               @Param("nextHash") String nextHash,
+               @Param("expiresAt") Instant expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query(value = "insert into refresh_token_used (token_hash, refresh_token_id) values (:tokenHash, :id) " +
+            "on conflict do nothing", nativeQuery = true)
+    int markUsed(@Param("id") UUID id, @Param("tokenHash") String tokenHash);
+
+    @Query(value = "select refresh_token_id from refresh_token_used where token_hash = :tokenHash", nativeQuery = true)
+    Optional<UUID> findIdByUsedTokenHash(@Param("tokenHash") String tokenHash);
+
+    // used hashes go with the row through the cascading foreign key
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshToken t where t.id = :id")
+    int deleteSession(@Param("id") UUID id);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshToken t where t.tokenHash = :tokenHash and t.userId = :userId")
+    int deleteByTokenHashAndUserId(@Param("tokenHash") String tokenHash, @Param("userId") UUID userId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
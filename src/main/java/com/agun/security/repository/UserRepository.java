@@ -1,16 +1,42 @@
 package com.agun.security.repository;
 
 import com.agun.security.model.User;
+import com.agun.security.security.UserCredentials;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
+// lookups run in read-only transactions, which a configured replica serves
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User, String> {
 
-    Optional<User> findByEmail(String email);
+    @Query("select u from User u where lower(u.email) = lower(:email)")
+    Optional<User> findByEmail(@Param("email") String email);
 
-    Boolean existsByEmail(String email);
+    // the four columns authentication needs, as a record rather than a managed entity
+    @Query("select new com.agun.security.security.UserCredentials(u.id, u.email, u.password, u.role) " +
+            "from User u where lower(u.email) = lower(:email)")
+    Optional<UserCredentials> findCredentialsByEmail(@Param("email") String email);
+
+    // compact tokens name the user by id
+    @Query("select new com.agun.security.security.UserCredentials(u.id, u.email, u.password, u.role) " +
+            "from User u where u.id = :id")
+    Optional<UserCredentials> findCredentialsById(@Param("id") UUID id);
+
+    // EXISTS stops at the first index match instead of counting
+    @Query(value = "select exists (select 1 from users where lower(email) = lower(:email))", nativeQuery = true)
+    boolean existsByEmail(@Param("email") String email);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.id = :id")
+    int updatePassword(@Param("id") UUID id, @Param("password") String password);
 
 }
@@ -0,0 +1,204 @@
+package com.agun.security.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for the authentication hot paths. Every meter is registered up front and held in a
+ * field, so recording is a field read plus the meter update, with no tag lookup or
+ * allocation per request. Tags come from small fixed sets.
+ */
+@Component
+public class AuthMetrics {
+
+    private final Timer tokenParse;
+    private final Timer tokenSignature;
+
+    private final Map<LookupOutcome, Timer> userLookups = new EnumMap<>(LookupOutcome.class);
+
+    private final Timer passwordEncode;
+    private final Timer passwordVerify;
+
+    private final Map<FilterOutcome, Counter> filterRequests = new EnumMap<>(FilterOutcome.class);
+
+    private final Map<RateLimitOutcome, Counter> rateLimitRequests = new EnumMap<>(RateLimitOutcome.class);
+
+    private final MeterRegistry registry;
+
+    public AuthMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.tokenParse = latency("auth.token.verification", "Token parsing and claim checks, signature excluded", registry, "phase", "parse");
+        this.tokenSignature = latency("auth.token.verification", "Token signature check", registry, "phase", "signature");
+        for (LookupOutcome outcome : LookupOutcome.values()) {
+            this.userLookups.put(outcome, latency("auth.user.lookup", "User lookup by email in the database", registry, "outcome", outcome.tag));
+        }
+        this.passwordEncode = latency("auth.password.hashing", "Password hashing", registry, "operation", "encode");
+        this.passwordVerify = latency("auth.password.hashing", "Password hash verification", registry, "operation", "verify");
+        for (FilterOutcome outcome : FilterOutcome.values()) {
+            this.filterRequests.put(outcome, Counter.builder("auth.filter.requests")
+                    .description("Requests seen by the JWT filter")
+                    .tag("outcome", outcome.outcome)
+                    .tag("reason", outcome.reason)
+                    .register(registry));
+        }
+        for (RateLimitOutcome outcome : RateLimitOutcome.values()) {
+            this.rateLimitRequests.put(outcome, Counter.builder("auth.rate_limit.requests")
+                    .description("Login and register calls seen by the rate limiter")
+                    .tag("outcome", outcome.outcome)
+                    .tag("limiter", outcome.limiter)
+                    .register(registry));
+        }
+    }
+
+    public void tokenVerified(long totalNanos, long signatureNanos) {
+        this.tokenSignature.record(signatureNanos, TimeUnit.NANOSECONDS);
+        this.tokenParse.record(Math.max(0, totalNanos - signatureNanos), TimeUnit.NANOSECONDS);
+    }
+
+    public void userLookup(LookupOutcome outcome, long nanos) {
+        this.userLookups.get(outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public Timer passwordEncode() {
+        return this.passwordEncode;
+    }
+
+    public Timer passwordVerify() {
+        return this.passwordVerify;
+    }
+
+    public void filter(FilterOutcome outcome) {
+        this.filterRequests.get(outcome).increment();
+    }
+
+    public void rateLimit(RateLimitOutcome outcome) {
+        this.rateLimitRequests.get(outcome).increment();
+    }
+
+    public void rateLimitKeys(String limiter, RateLimiter rateLimiter) {
+        Gauge.builder("auth.rate_limit.keys", rateLimiter, RateLimiter::size)
+                .description("Keys holding a partly drained bucket")
+                .tag("limiter", limiter)
+                .register(this.registry);
+    }
+
+    public void tokenCache(VerifiedTokenCache cache) {
+        FunctionCounter.builder("auth.token.verification.cache.requests", cache, c -> c.stats().hits())
+                .description("Verifications looked up in the verified token cache")
+                .tag("result", "hit")
+                .register(this.registry);
+        FunctionCounter.builder("auth.token.verification.cache.requests", cache, c -> c.stats().misses())
+                .description("Verifications looked up in the verified token cache")
+                .tag("result", "miss")
+                .register(this.registry);
+        Gauge.builder("auth.token.verification.cache.hit_ratio", cache, c -> c.stats().hitRatio())
+                .description("Share of cache lookups answered without verifying the token")
+                .register(this.registry);
+        Gauge.builder("auth.token.verification.cache.size", cache, c -> c.stats().size())
+                .description("Verified tokens held")
+                .register(this.registry);
+    }
+
+    public void userCache(UserDetailsCache cache) {
+        FunctionCounter.builder("auth.user.cache.requests", cache, c -> c.stats().hits())
+                .description("User details lookups answered by the cache")
+                .tag("result", "hit")
+                .register(this.registry);
+        FunctionCounter.builder("auth.user.cache.requests", cache, c -> c.stats().misses())
+                .description("User details lookups answered by the cache")
+                .tag("result", "miss")
+                .register(this.registry);
+        FunctionCounter.builder("auth.user.cache.evictions", cache, c -> c.stats().evictions())
+                .description("User details entries dropped for expiry, size or a change of the user")
+                .register(this.registry);
+        Gauge.builder("auth.user.cache.size", cache, c -> c.stats().size())
+                .description("User details entries held")
+                .register(this.registry);
+    }
+
+    public void revocations(TokenRevocationService revocations) {
+        Gauge.builder("auth.revocation.tokens", revocations, r -> r.stats().revokedTokens())
+                .description("Revoked, unexpired tokens held in memory")
+                .register(this.registry);
+        Gauge.builder("auth.revocation.bloom_filter.size", revocations, r -> r.stats().bloomFilterBytes())
+                .description("Bloom filter in front of the revoked token set")
+                .baseUnit("bytes")
+                .register(this.registry);
+        Gauge.builder("auth.revocation.memory.per_token", revocations, r -> r.stats().bytesPerRevokedToken())
+                .description("Estimated heap held per revoked token, filter and exact set together")
+                .baseUnit("bytes")
+                .register(this.registry);
+    }
+
+    private static Timer latency(String name, String description, MeterRegistry registry, String tagKey, String tagValue) {
+        return Timer.builder(name)
+                .description(description)
+                .tag(tagKey, tagValue)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public enum LookupOutcome {
+        FOUND("found"),
+        NOT_FOUND("not_found"),
+        ERROR("error");
+
+        private final String tag;
+
+        LookupOutcome(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    public enum FilterOutcome {
+        ACCEPTED("accepted", "none"),
+        NO_TOKEN("skipped", "no_token"),
+        MALFORMED("rejected", "malformed"),
+        UNKNOWN_KEY("rejected", "unknown_key"),
+        EXPIRED("rejected", "expired"),
+        BAD_SIGNATURE("rejected", "bad_signature"),
+        REVOKED("rejected", "revoked"),
+        UNKNOWN_USER("rejected", "unknown_user"),
+        INVALID_CLAIMS("rejected", "invalid_claims");
+
+        private final String outcome;
+        private final String reason;
+
+        FilterOutcome(String outcome, String reason) {
+            this.outcome = outcome;
+            this.reason = reason;
+        }
+
+        public static FilterOutcome of(VerificationResult.Rejection rejection) {
+            return switch (rejection) {
+                case MALFORMED -> MALFORMED;
+                case UNKNOWN_KEY -> UNKNOWN_KEY;
+                case EXPIRED -> EXPIRED;
+                case BAD_SIGNATURE -> BAD_SIGNATURE;
+            };
+        }
+    }
+
+    public enum RateLimitOutcome {
+        ALLOWED("allowed", "none"),
+        IP("rejected", "ip"),
+        EMAIL("rejected", "email"),
+        BODY_TOO_LARGE("rejected", "body_too_large");
+
+        private final String outcome;
+        private final String limiter;
+
+        RateLimitOutcome(String outcome, String limiter) {
+            this.outcome = outcome;
+            this.limiter = limiter;
+        }
+    }
+}
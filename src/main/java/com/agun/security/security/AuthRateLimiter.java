@@ -0,0 +1,189 @@
+package com.agun.security.security;
+
+import com.agun.security.config.RateLimitProperties;
+import com.agun.security.model.User;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Rate limits for the unauthenticated endpoints that hash a password. The client address is
+ * checked first, from the request line alone, so a flood from one address is turned away
+ * before its body is read; the target email then spreads a credential stuffing run across
+ * many addresses back onto one bucket. Used by both {@link RateLimitFilter} and
+ * {@link RateLimitWebFilter}.
+ */
+@Component
+public class AuthRateLimiter {
+
+    // far above any login or register payload, larger bodies are refused unparsed
+    public static final int MAXIMUM_BODY_BYTES = 16 * 1024;
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final Set<String> LIMITED_PATHS = Set.of("/api/auth/login", "/api/auth/register");
+
+    private static final byte[] EMAIL_KEY = "email".getBytes(StandardCharsets.US_ASCII);
+
+    private final boolean enabled;
+    private final RateLimiter perIp;
+    private final RateLimiter perEmail;
+    private final AuthMetrics metrics;
+
+    public AuthRateLimiter(RateLimitProperties properties, AuthMetrics metrics) {
+        this.enabled = properties.isEnabled();
+        this.perIp = new RateLimiter(properties.getPerIp().getRequests(), properties.getPerIp().getPeriod(), properties.getMaximumKeys());
+        this.perEmail = new RateLimiter(properties.getPerEmail().getRequests(), properties.getPerEmail().getPeriod(), properties.getMaximumKeys());
+        this.metrics = metrics;
+        metrics.rateLimitKeys("ip", this.perIp);
+        metrics.rateLimitKeys("email", this.perEmail);
+    }
+
+    /**
+     * @param path the decoded path within the application; letter case, repeated and trailing
+     *             slashes are ignored, so no spelling the handler might still accept gets past
+     */
+    public boolean appliesTo(String method, String path) {
+        return enabled
+                && HttpMethod.POST.matches(method)
+                && path != null
+                && LIMITED_PATHS.contains(normalize(path));
+    }
+
+    /**
+     * @return 0 when the address may go on, otherwise the nanoseconds until it may
+     */
+    public long acquireAddress(String address) {
+        final long wait = perIp.tryAcquire(address);
+        if (wait > 0) {
+            metrics.rateLimit(AuthMetrics.RateLimitOutcome.IP);
+        }
+        return wait;
+    }
+
+    /**
+     * Takes the email from the JSON body, the last {@code email} field wins as it does when
+     * the body is bound. A body without one is left to the per address limit.
+     *
+     * @return 0 when the request may go on, otherwise the nanoseconds until it may
+     */
+    public long acquireEmail(byte[] body) {
+        final String email = User.normalizeEmail(emailOf(body));
+        final long wait = email == null ? 0 : perEmail.tryAcquire(email);
+        metrics.rateLimit(wait > 0 ? AuthMetrics.RateLimitOutcome.EMAIL : AuthMetrics.RateLimitOutcome.ALLOWED);
+        return wait;
+    }
+
+    public void bodyTooLarge() {
+        metrics.rateLimit(AuthMetrics.RateLimitOutcome.BODY_TOO_LARGE);
+    }
+
+    @Scheduled(fixedDelayString = "${application.security.rate-limit.eviction-interval:PT1M}")
+    public void evictIdle() {
+        perIp.evictIdle();
+        perEmail.evictIdle();
+    }
+
+    /*
+     * A single pass over the bytes: without escapes a quote always opens or closes a string, so
+     * quotes and brackets alone give the top level keys. Bodies with escapes go through Jackson,
+     * so an escaped key or a second email field reads as it will when the body is bound.
+     */
+    static String emailOf(byte[] body) {
+        String email = null;
+        boolean emailValueNext = false;
+        int depth = 0;
+        int i = 0;
+        while (i < body.length) {
+            final byte b = body[i];
+            if (b == '"') {
+                final int start = ++i;
+                while (i < body.length && body[i] != '"') {
+                    if (body[i] == '\\') {
+                        return parsedEmailOf(body);
+                    }
+                    i++;
+                }
+                if (i == body.length) {
+                    return email;
+                }
+                final int end = i++;
+                if (depth != 1) {
+                    continue;
+                }
+                if (emailValueNext) {
+                    email = new String(body, start, end - start, StandardCharsets.UTF_8);
+                    emailValueNext = false;
+                    continue;
+                }
+                int next = i;
+                while (next < body.length && Character.isWhitespace(body[next])) {
+                    next++;
+                }
+                if (next < body.length && body[next] == ':' && isEmailKey(body, start, end)) {
+                    emailValueNext = true;
+                    i = next + 1;
+                }
+                continue;
+            }
+            if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+            } else if (b == ',') {
+                emailValueNext = false;
+            }
+            i++;
+        }
+        return email;
+    }
+
+    private static boolean isEmailKey(byte[] body, int start, int end) {
+        return end - start == EMAIL_KEY.length && Arrays.equals(body, start, end, EMAIL_KEY, 0, EMAIL_KEY.length);
+    }
+
+    private static String parsedEmailOf(byte[] body) {
+        String email = null;
+        try (JsonParser parser = JSON.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                final boolean isEmail = "email".equals(parser.currentName());
+                token = parser.nextToken();
+                if (isEmail && token == JsonToken.VALUE_STRING) {
+                    email = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            // malformed bodies are rejected when bound, the address limit still applies
+        }
+        return email;
+    }
+
+    private static String normalize(String path) {
+        final StringBuilder normalized = new StringBuilder(path.length());
+        for (int i = 0; i < path.length(); i++) {
+            final char c = path.charAt(i);
+            if (c == '/' && normalized.length() > 0 && normalized.charAt(normalized.length() - 1) == '/') {
+                continue;
+            }
+            normalized.append(Character.toLowerCase(c));
+        }
+        if (normalized.length() > 1 && normalized.charAt(normalized.length() - 1) == '/') {
+            normalized.setLength(normalized.length() - 1);
+        }
+        return normalized.toString();
+    }
+}
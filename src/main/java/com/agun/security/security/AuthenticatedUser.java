@@ -0,0 +1,21 @@
+package com.agun.security.security;
+
+import com.agun.security.constant.Role;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.UUID;
+
+public interface AuthenticatedUser extends UserDetails {
+
+    UUID getId();
+
+    Role getRole();
+
+    /**
+     * Bitset of {@link com.agun.security.constant.Permission}s, checked by
+     * {@link PermissionAuthorizationManager}.
+     */
+    default long getPermissions() {
+        return getRole().permissions();
+    }
+}
@@ -0,0 +1,43 @@
+package com.agun.security.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.time.Duration;
+
+/**
+ * Picks the BCrypt log rounds whose verify time on this machine is closest to, without
+ * exceeding, a target latency. Each extra round doubles the cost, so a handful of cheap
+ * samples at a low cost is enough to extrapolate.
+ */
+@Slf4j
+public final class BCryptStrengthCalibrator {
+
+    private static final int SAMPLE_STRENGTH = 6;
+    private static final int SAMPLES = 5;
+    private static final int MAXIMUM_STRENGTH = 31;
+
+    private BCryptStrengthCalibrator() {
+    }
+
+    public static int calibrate(Duration targetVerifyTime, int minimumStrength) {
+        final String salt = BCrypt.gensalt(SAMPLE_STRENGTH);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        int strength = SAMPLE_STRENGTH;
+        long estimate = best;
+        while (strength < MAXIMUM_STRENGTH && estimate * 2 <= targetVerifyTime.toNanos()) {
+            estimate *= 2;
+            strength++;
+        }
+        strength = Math.max(strength, minimumStrength);
+        log.info("Calibrated BCrypt strength {} for a target verify time of {} ms (estimated {} ms)",
+                strength, targetVerifyTime.toMillis(), Duration.ofNanos(estimate).toMillis());
+        return strength;
+    }
+}
@@ -0,0 +1,54 @@
+package com.agun.security.security;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * A few reusable instances of a stateful, non thread-safe object such as a {@code Mac} or a
+ * {@code MessageDigest}, shared by all threads. A thread local would build one per thread,
+ * which with a virtual thread per request is one per request. Borrowing takes an idle
+ * instance from a slot, or builds a new one when all are in use; releasing puts it back
+ * unless every slot is full, in which case it is dropped.
+ */
+final class InstancePool<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final Supplier<T> factory;
+
+    InstancePool(Supplier<T> factory) {
+        this(2 * Runtime.getRuntime().availableProcessors(), factory);
+    }
+
+    InstancePool(int size, Supplier<T> factory) {
+        this.slots = new AtomicReferenceArray<>(size);
+        this.factory = factory;
+    }
+
+    T borrow() {
+        final int size = slots.length();
+        final int start = start(size);
+        for (int i = 0; i < size; i++) {
+            final T idle = slots.getAndSet((start + i) % size, null);
+            if (idle != null) {
+                return idle;
+            }
+        }
+        return factory.get();
+    }
+
+    // the instance must be back in its initial state, as Mac.doFinal and MessageDigest.digest leave it
+    void release(T instance) {
+        final int size = slots.length();
+        final int start = start(size);
+        for (int i = 0; i < size; i++) {
+            if (slots.compareAndSet((start + i) % size, null, instance)) {
+                return;
+            }
+        }
+    }
+
+    // threads start probing at different slots so they rarely contend for the same one
+    private static int start(int size) {
+        return Math.floorMod(System.identityHashCode(Thread.currentThread()), size);
+    }
+}
@@ -0,0 +1,18 @@
+package com.agun.security.security;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The 401 both JWT filters send for a rejected bearer token. The body is encoded once, in the
+ * shape of {@code DefaultResponse}, and written as is.
+ */
+final class InvalidTokenResponse {
+
+    static final String CHALLENGE = "Bearer error=\"invalid_token\"";
+
+    static final byte[] BODY = "{\"status\":\"UNAUTHORIZED\",\"message\":\"Invalid token\",\"data\":null}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private InvalidTokenResponse() {
+    }
+}
@@ -0,0 +1,128 @@
+package com.agun.security.security;
+
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.Key;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Resolves verification keys from a remote JWKS. The set is downloaded once at startup and
+ * kept in memory. A token naming a key id that is not in the set never waits on the issuer:
+ * it is rejected, and a download is started on a background thread, at most once per refresh
+ * interval. The missing id is remembered for one interval, so floods of unknown ids only cost
+ * a map lookup.
+ */
+@Slf4j
+public class JwksKeyLocator {
+
+    private static final int MAX_UNKNOWN_KIDS = 1024;
+
+    private final URI jwksUri;
+    private final long refreshIntervalNanos;
+    private final HttpClient httpClient;
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "jwks-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    // key id -> System.nanoTime() until which it is known to be missing
+    private final ConcurrentHashMap<String, Long> unknownKids = new ConcurrentHashMap<>();
+
+    private volatile Map<String, Key> keys = Map.of();
+    private volatile long lastRefresh;
+
+    public JwksKeyLocator(String jwksUri, Duration refreshInterval) {
+        this.jwksUri = URI.create(jwksUri);
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        // at startup, not on a request
+        refresh();
+    }
+
+    public Key find(String kid) {
+        final Key key = this.keys.get(kid);
+        if (key != null) {
+            return key;
+        }
+        final long now = System.nanoTime();
+        final Long unknownUntil = unknownKids.get(kid);
+        if (unknownUntil != null && now - unknownUntil < 0) {
+            return null;
+        }
+        if (unknownKids.size() >= MAX_UNKNOWN_KIDS) {
+            unknownKids.clear();
+        }
+        unknownKids.put(kid, now + refreshIntervalNanos);
+        refreshInBackground(now);
+        return null;
+    }
+
+    private void refreshInBackground(long now) {
+        if (now - lastRefresh < refreshIntervalNanos || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    refresh();
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.set(false);
+        }
+    }
+
+    private void refresh() {
+        lastRefresh = System.nanoTime();
+        try {
+            this.keys = download();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to load JWKS from {}: {}", jwksUri, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Map<String, Key> download() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(jwksUri)
+                .timeout(Duration.ofSeconds(5))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Unexpected status " + response.statusCode());
+        }
+
+        JwkSet jwkSet = Jwks.setParser().build().parse(response.body());
+        Map<String, Key> downloaded = new HashMap<>();
+        for (Jwk<?> jwk : jwkSet.getKeys()) {
+            if (jwk.getId() != null) {
+                downloaded.put(jwk.getId(), jwk.toKey());
+            }
+        }
+        log.info("Loaded {} keys from {}", downloaded.size(), jwksUri);
+        return Map.copyOf(downloaded);
+    }
+}
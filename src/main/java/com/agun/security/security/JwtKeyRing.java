@@ -0,0 +1,292 @@
+package com.agun.security.security;
+
+import com.agun.security.config.JwtProperties;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.PublicJwk;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the signing and verification keys indexed by their {@code kid} header. Keys are
+ * decoded once, the parser is built once and resolves keys through a volatile immutable
+ * map, so the verify path does a single hash lookup. Rotation replaces the map copy-on-write.
+ * HMAC secrets sign and verify; for asymmetric pairs the public half verifies and is
+ * published as a JWK.
+ */
+@Component
+@Slf4j
+public class JwtKeyRing {
+
+    private volatile Keyring keys;
+
+    private volatile String activeKeyId;
+
+    // encoded header segments our own tokens carry, for the structural pre-check
+    private volatile List<String> knownHeaders = List.of();
+
+    // the subset signed with HMAC secrets, which the compact fast path verifies itself
+    private volatile List<HmacKey> hmacKeys = List.of();
+
+    private final JwksKeyLocator remoteKeys;
+
+    private final JwtParser parser;
+
+    public JwtKeyRing(JwtProperties properties) {
+        Map<String, Key> signing = new HashMap<>();
+        Map<String, Key> verification = new HashMap<>();
+        Map<String, PublicKey> published = new HashMap<>();
+        properties.getKeys().forEach((kid, secret) -> {
+            SecretKey key = decode(secret);
+            signing.put(kid, key);
+            verification.put(kid, key);
+        });
+        properties.getKeyPairs().forEach((kid, pair) -> {
+            KeyPair keyPair = decode(kid, pair);
+            signing.put(kid, keyPair.getPrivate());
+            verification.put(kid, keyPair.getPublic());
+            published.put(kid, keyPair.getPublic());
+        });
+        if (!signing.containsKey(properties.getActiveKeyId())) {
+            throw new IllegalStateException("Active key id '" + properties.getActiveKeyId() + "' is not configured");
+        }
+        this.keys = new Keyring(Map.copyOf(signing), Map.copyOf(verification), Map.copyOf(published));
+        this.activeKeyId = properties.getActiveKeyId();
+        this.remoteKeys = StringUtils.hasText(properties.getJwksUri())
+                ? new JwksKeyLocator(properties.getJwksUri(), properties.getJwksRefreshInterval())
+                : null;
+        this.parser = Jwts.parser()
+                .keyLocator(new KeyRingLocator())
+                .sig().add(TimedSignatureAlgorithm.standardAlgorithms()).and()
+                .build();
+        refreshKnownHeaders();
+    }
+
+    public JwtParser parser() {
+        return this.parser;
+    }
+
+    public List<String> knownHeaders() {
+        return this.knownHeaders;
+    }
+
+    List<HmacKey> hmacKeys() {
+        return this.hmacKeys;
+    }
+
+    /**
+     * Tokens signed by a remote issuer carry headers we cannot predict.
+     */
+    public boolean acceptsUnknownHeaders() {
+        return this.remoteKeys != null;
+    }
+
+    public String activeKeyId() {
+        return this.activeKeyId;
+    }
+
+    public Key signingKey(String kid) {
+        return this.keys.signing().get(kid);
+    }
+
+    public Key verificationKey(String kid) {
+        // tokens issued before key ids were introduced carry no kid
+        Key key = this.keys.verification().get(kid == null ? this.activeKeyId : kid);
+        if (key == null && kid != null && this.remoteKeys != null) {
+            key = this.remoteKeys.find(kid);
+        }
+        return key;
+    }
+
+    public List<PublicJwk<?>> publicJwks() {
+        List<PublicJwk<?>> jwks = new ArrayList<>();
+        this.keys.published().forEach((kid, key) -> jwks.add(Jwks.builder().key(key).id(kid).build()));
+        return jwks;
+    }
+
+    public synchronized void addKey(String kid, SecretKey key) {
+        Keyring current = this.keys;
+        this.keys = new Keyring(
+                with(current.signing(), kid, key),
+                with(current.verification(), kid, key),
+                current.published()
+        );
+        refreshKnownHeaders();
+        log.info("Added signing key {}", kid);
+    }
+
+    public synchronized void addKeyPair(String kid, KeyPair keyPair) {
+        Keyring current = this.keys;
+        this.keys = new Keyring(
+                with(current.signing(), kid, keyPair.getPrivate()),
+                with(current.verification(), kid, keyPair.getPublic()),
+                with(current.published(), kid, keyPair.getPublic())
+        );
+        refreshKnownHeaders();
+        log.info("Added signing key pair {}", kid);
+    }
+
+    public synchronized void activate(String kid) {
+        if (!this.keys.signing().containsKey(kid)) {
+            throw new IllegalArgumentException("Unknown key id " + kid);
+        }
+        this.activeKeyId = kid;
+        refreshKnownHeaders();
+        log.info("Activated signing key {}", kid);
+    }
+
+    public synchronized void retire(String kid) {
+        if (kid.equals(this.activeKeyId)) {
+            throw new IllegalArgumentException("Cannot retire the active key " + kid);
+        }
+        Keyring current = this.keys;
+        this.keys = new Keyring(
+                without(current.signing(), kid),
+                without(current.verification(), kid),
+                without(current.published(), kid)
+        );
+        refreshKnownHeaders();
+        log.info("Retired signing key {}", kid);
+    }
+
+    // signs a throwaway token per key, the same header calls TokenManager makes
+    private void refreshKnownHeaders() {
+        List<String> headers = new ArrayList<>();
+        List<HmacKey> hmac = new ArrayList<>();
+        this.keys.signing().forEach((kid, key) -> {
+            String header = headerOf(Jwts.builder()
+                    .header().keyId(kid).and()
+                    .subject("header")
+                    .signWith(key)
+                    .compact());
+            headers.add(header);
+            if (key instanceof SecretKey secret) {
+                hmac.add(new HmacKey(header, kid, secret));
+            }
+        });
+        // tokens issued before key ids were introduced carry no kid
+        Key activeKey = this.keys.signing().get(this.activeKeyId);
+        if (activeKey instanceof SecretKey) {
+            headers.add(headerOf(Jwts.builder().subject("header").signWith(activeKey).compact()));
+        }
+        this.knownHeaders = List.copyOf(headers);
+        this.hmacKeys = List.copyOf(hmac);
+    }
+
+    private static String headerOf(String token) {
+        return token.substring(0, token.indexOf('.'));
+    }
+
+    private static <K extends Key> Map<String, K> with(Map<String, K> keys, String kid, K key) {
+        Map<String, K> copy = new HashMap<>(keys);
+        copy.put(kid, key);
+        return Map.copyOf(copy);
+    }
+
+    private static <K extends Key> Map<String, K> without(Map<String, K> keys, String kid) {
+        Map<String, K> copy = new HashMap<>(keys);
+        copy.remove(kid);
+        return Map.copyOf(copy);
+    }
+
+    private static SecretKey decode(String secret) {
+        byte[] keyBytes = Decoders.BASE64.decode(secret);
+        return Keys.hmacShaKeyFor(keyBytes);
+    }
+
+    private static KeyPair decode(String kid, JwtProperties.KeyPairProperties properties) {
+        final boolean edwards = "EdDSA".equalsIgnoreCase(properties.getAlgorithm());
+        if (!StringUtils.hasText(properties.getPrivateKey())) {
+            log.warn("No key material for {}, generated a throwaway {} key pair", kid, properties.getAlgorithm());
+            return edwards ? Jwts.SIG.EdDSA.keyPair().build() : Jwts.SIG.ES256.keyPair().build();
+        }
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(edwards ? "EdDSA" : "EC");
+            PrivateKey privateKey = keyFactory.generatePrivate(
+                    new PKCS8EncodedKeySpec(Decoders.BASE64.decode(properties.getPrivateKey())));
+            PublicKey publicKey = keyFactory.generatePublic(
+                    new X509EncodedKeySpec(Decoders.BASE64.decode(properties.getPublicKey())));
+            return new KeyPair(publicKey, privateKey);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Invalid key pair " + kid, e);
+        }
+    }
+
+    /**
+     * An HMAC key with the exact header segment our tokens signed by it start with, and a
+     * pool of initialised {@link Mac}s so verifying does not look the algorithm up again.
+     */
+    static final class HmacKey {
+
+        private final String header;
+        private final String keyId;
+        private final InstancePool<Mac> macs;
+
+        private HmacKey(String header, String keyId, SecretKey key) {
+            this.header = header;
+            this.keyId = keyId;
+            this.macs = new InstancePool<>(() -> {
+                try {
+                    Mac mac = Mac.getInstance(key.getAlgorithm());
+                    mac.init(key);
+                    return mac;
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("Unusable HMAC key " + keyId, e);
+                }
+            });
+        }
+
+        String header() {
+            return this.header;
+        }
+
+        String keyId() {
+            return this.keyId;
+        }
+
+        Mac borrowMac() {
+            return this.macs.borrow();
+        }
+
+        void releaseMac(Mac mac) {
+            this.macs.release(mac);
+        }
+    }
+
+    private record Keyring(Map<String, Key> signing, Map<String, Key> verification,
+                           Map<String, PublicKey> published) {
+    }
+
+    private class KeyRingLocator extends LocatorAdapter<Key> {
+        @Override
+        protected Key locate(ProtectedHeader header) {
+            Key key = verificationKey(header.getKeyId());
+            if (key == null) {
+                throw new UnsupportedJwtException("Unknown signing key id");
+            }
+            return key;
+        }
+    }
+}
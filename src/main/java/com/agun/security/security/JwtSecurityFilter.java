@@ -5,12 +5,15 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -18,11 +21,14 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 
 @Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 public class JwtSecurityFilter extends OncePerRequestFilter {
 
     private final TokenManager tokenManager;
     private final UserDetailsService userDetailsService;
+    private final TokenRevocationService revocationService;
+    private final AuthMetrics metrics;
 
     @Override
     protected void doFilterInternal(
@@ -34,22 +40,54 @@ public class JwtSecurityFilter extends OncePerRequestFilter {
         final String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            metrics.filter(AuthMetrics.FilterOutcome.NO_TOKEN);
             filterChain.doFilter(request, response);
             return;
         }
 
-        final String token = authHeader.substring(7);
-        final String username = tokenManager.extractUsername(token);
+        final VerificationResult result = tokenManager.check(authHeader.substring(7));
+        if (!result.isValid()) {
+            metrics.filter(AuthMetrics.FilterOutcome.of(result.rejection()));
+            rejectInvalidToken(response);
+            return;
+        }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        final VerifiedToken token = result.token();
+        final String username = token.subject();
 
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        // a token that verifies but names nobody, or was revoked, is as unusable as a bad one
+        if (username == null) {
+            metrics.filter(AuthMetrics.FilterOutcome.MALFORMED);
+            rejectInvalidToken(response);
+            return;
+        }
+        if (revocationService.isRevoked(token.tokenId())) {
+            metrics.filter(AuthMetrics.FilterOutcome.REVOKED);
+            rejectInvalidToken(response);
+            return;
+        }
 
-            if (tokenManager.isTokenValid(token, userDetails)) {
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+
+            UserDetails userDetails = tokenManager.toPrincipal(token);
+            if (userDetails == null) {
+                try {
+                    userDetails = this.userDetailsService.loadUserByUsername(username);
+                } catch (UsernameNotFoundException e) {
+                    metrics.filter(AuthMetrics.FilterOutcome.UNKNOWN_USER);
+                    rejectInvalidToken(response);
+                    return;
+                }
+            }
+
+            if (!tokenManager.isTokenValid(token, userDetails)) {
+                metrics.filter(AuthMetrics.FilterOutcome.INVALID_CLAIMS);
+            } else {
+                metrics.filter(AuthMetrics.FilterOutcome.ACCEPTED);
 
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
-                        null,
+                        token,
                         userDetails.getAuthorities()
                 );
 
@@ -63,4 +101,12 @@ public class JwtSecurityFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private static void rejectInvalidToken(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setHeader(HttpHeaders.WWW_AUTHENTICATE, InvalidTokenResponse.CHALLENGE);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(InvalidTokenResponse.BODY.length);
+        response.getOutputStream().write(InvalidTokenResponse.BODY);
+    }
 }
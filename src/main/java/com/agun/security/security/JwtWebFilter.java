@@ -0,0 +1,94 @@
+package com.agun.security.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * Reactive counterpart of {@link JwtSecurityFilter}. Signature checks and the revocation
+ * lookup stay in memory, and a remote key set is only downloaded on its own thread, so
+ * nothing here blocks the event loop; only a user lookup outside stateless mode goes to the
+ * database, through R2DBC. Not a bean, so WebFlux does not also register it outside the
+ * security chain.
+ */
+@RequiredArgsConstructor
+public class JwtWebFilter implements WebFilter {
+
+    private final TokenManager tokenManager;
+    private final ReactiveUserDetailsService userDetailsService;
+    private final TokenRevocationService revocationService;
+    private final AuthMetrics metrics;
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+
+        final String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            metrics.filter(AuthMetrics.FilterOutcome.NO_TOKEN);
+            return chain.filter(exchange);
+        }
+
+        final VerificationResult result = tokenManager.check(authHeader.substring(7));
+        if (!result.isValid()) {
+            metrics.filter(AuthMetrics.FilterOutcome.of(result.rejection()));
+            return rejectInvalidToken(exchange.getResponse());
+        }
+
+        final VerifiedToken token = result.token();
+
+        if (token.subject() == null) {
+            metrics.filter(AuthMetrics.FilterOutcome.MALFORMED);
+            return rejectInvalidToken(exchange.getResponse());
+        }
+        if (revocationService.isRevoked(token.tokenId())) {
+            metrics.filter(AuthMetrics.FilterOutcome.REVOKED);
+            return rejectInvalidToken(exchange.getResponse());
+        }
+
+        final UserDetails principal = tokenManager.toPrincipal(token);
+        final Mono<UserDetails> userDetails = principal != null
+                ? Mono.just(principal)
+                : userDetailsService.findByUsername(token.subject());
+
+        return userDetails
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(found -> {
+                    if (found.isEmpty()) {
+                        metrics.filter(AuthMetrics.FilterOutcome.UNKNOWN_USER);
+                        return rejectInvalidToken(exchange.getResponse());
+                    }
+                    final UserDetails user = found.get();
+                    if (!tokenManager.isTokenValid(token, user)) {
+                        metrics.filter(AuthMetrics.FilterOutcome.INVALID_CLAIMS);
+                        return chain.filter(exchange);
+                    }
+                    metrics.filter(AuthMetrics.FilterOutcome.ACCEPTED);
+                    return chain.filter(exchange).contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+                            new UsernamePasswordAuthenticationToken(user, token, user.getAuthorities())));
+                });
+    }
+
+    private static Mono<Void> rejectInvalidToken(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, InvalidTokenResponse.CHALLENGE);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(InvalidTokenResponse.BODY.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(InvalidTokenResponse.BODY)));
+    }
+}
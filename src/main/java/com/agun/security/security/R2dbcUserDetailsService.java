@@ -0,0 +1,28 @@
+package com.agun.security.security;
+
+import com.agun.security.repository.ReactiveUserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class R2dbcUserDetailsService implements ReactiveUserDetailsService {
+
+    private final ReactiveUserRepository userRepository;
+
+    @Override
+    public Mono<UserDetails> findByUsername(String username) {
+        final UUID userId = TokenManager.userIdOf(username);
+        return (userId != null
+                ? this.userRepository.findCredentialsById(userId)
+                : this.userRepository.findCredentialsByEmail(username))
+                .cast(UserDetails.class);
+    }
+}
@@ -0,0 +1,25 @@
+package com.agun.security.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The 429 both rate limit filters send, in the shape {@code ControllerAdvice} gives a
+ * {@code TooManyRequestsException}. The body is encoded once and written as is.
+ */
+final class RateLimitResponse {
+
+    static final byte[] BODY = "{\"status\":\"TOO_MANY_REQUESTS\",\"message\":\"Too many requests\",\"data\":null}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    static final byte[] TOO_LARGE_BODY = "{\"status\":\"PAYLOAD_TOO_LARGE\",\"message\":\"Request body too large\",\"data\":null}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private RateLimitResponse() {
+    }
+
+    // whole seconds, rounded up and at least one
+    static String retryAfter(long waitNanos) {
+        return String.valueOf(Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1)));
+    }
+}
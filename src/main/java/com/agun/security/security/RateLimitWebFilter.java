@@ -0,0 +1,110 @@
+package com.agun.security.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Reactive counterpart of {@link RateLimitFilter}. The body is joined into one buffer, checked,
+ * and replayed to the handler. Not a bean, for the same reason as {@link JwtWebFilter}.
+ */
+@RequiredArgsConstructor
+public class RateLimitWebFilter implements WebFilter {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final AuthRateLimiter rateLimiter;
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        final ServerHttpRequest request = exchange.getRequest();
+        if (!rateLimiter.appliesTo(request.getMethod().name(), decodedPath(request))) {
+            return chain.filter(exchange);
+        }
+
+        final long wait = rateLimiter.acquireAddress(address(request.getRemoteAddress()));
+        if (wait > 0) {
+            return reject(exchange.getResponse(), wait);
+        }
+
+        return DataBufferUtils.join(request.getBody(), AuthRateLimiter.MAXIMUM_BODY_BYTES)
+                .map(RateLimitWebFilter::drain)
+                .defaultIfEmpty(EMPTY)
+                .flatMap(body -> {
+                    final long emailWait = rateLimiter.acquireEmail(body);
+                    if (emailWait > 0) {
+                        return reject(exchange.getResponse(), emailWait);
+                    }
+                    return chain.filter(exchange.mutate().request(replay(request, body, exchange)).build());
+                })
+                .onErrorResume(DataBufferLimitException.class, e -> {
+                    rateLimiter.bodyTooLarge();
+                    return write(exchange.getResponse(), HttpStatus.PAYLOAD_TOO_LARGE, RateLimitResponse.TOO_LARGE_BODY);
+                });
+    }
+
+    // the raw path keeps percent-encoding and path parameters, the handler mappings match on neither
+    private static String decodedPath(ServerHttpRequest request) {
+        final StringBuilder path = new StringBuilder();
+        for (PathContainer.Element element : request.getPath().pathWithinApplication().elements()) {
+            path.append(element instanceof PathContainer.PathSegment segment ? segment.valueToMatch() : element.value());
+        }
+        return path.toString();
+    }
+
+    private static String address(InetSocketAddress remote) {
+        if (remote == null) {
+            return "unknown";
+        }
+        return remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString();
+    }
+
+    private static byte[] drain(DataBuffer buffer) {
+        try {
+            final byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private static ServerHttpRequest replay(ServerHttpRequest request, byte[] body, ServerWebExchange exchange) {
+        return new ServerHttpRequestDecorator(request) {
+            @Override
+            @NonNull
+            public Flux<DataBuffer> getBody() {
+                return Flux.defer(() -> Flux.just(exchange.getResponse().bufferFactory().wrap(body)));
+            }
+        };
+    }
+
+    private static Mono<Void> reject(ServerHttpResponse response, long waitNanos) {
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, RateLimitResponse.retryAfter(waitNanos));
+        return write(response, HttpStatus.TOO_MANY_REQUESTS, RateLimitResponse.BODY);
+    }
+
+    private static Mono<Void> write(ServerHttpResponse response, HttpStatus status, byte[] body) {
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+}
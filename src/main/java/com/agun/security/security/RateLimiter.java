@@ -0,0 +1,86 @@
+package com.agun.security.security;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket per key, kept in its GCRA form: a key holds only the theoretical arrival time of
+ * its next request, so acquiring is a map read plus one CAS, lock free and allocation free once
+ * the key is known. A key whose bucket has refilled completely carries no state and is dropped
+ * by {@link #evictIdle()}; the table never grows past {@code maximumKeys}.
+ */
+public class RateLimiter {
+
+    private final long emissionInterval;
+    private final long burstTolerance;
+    private final int maximumKeys;
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<String, AtomicLong> arrivals;
+    private final AtomicLong nextSweep;
+
+    public RateLimiter(int requests, Duration period, int maximumKeys) {
+        this(requests, period, maximumKeys, System::nanoTime);
+    }
+
+    RateLimiter(int requests, Duration period, int maximumKeys, LongSupplier clock) {
+        if (requests < 1 || period.isNegative() || period.isZero() || maximumKeys < 1) {
+            throw new IllegalArgumentException("requests, period and maximumKeys must be positive");
+        }
+        this.emissionInterval = Math.max(1, period.toNanos() / requests);
+        this.burstTolerance = this.emissionInterval * (requests - 1);
+        this.maximumKeys = maximumKeys;
+        this.clock = clock;
+        this.arrivals = new ConcurrentHashMap<>(Math.min(maximumKeys, 1024));
+        this.nextSweep = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * @return 0 when the request may go ahead, otherwise the nanoseconds until it would
+     */
+    public long tryAcquire(String key) {
+        final long now = clock.getAsLong();
+        AtomicLong arrival = arrivals.get(key);
+        if (arrival == null) {
+            // a full table rejects new keys rather than forget the ones it is limiting
+            if (arrivals.size() >= maximumKeys && !makeRoom(now)) {
+                return emissionInterval;
+            }
+            arrival = arrivals.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            final long current = arrival.get();
+            final long start = current - now > 0 ? current : now;
+            final long wait = start - now - burstTolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(current, start + emissionInterval)) {
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        return arrivals.size();
+    }
+
+    public void evictIdle() {
+        evictIdle(clock.getAsLong());
+    }
+
+    private void evictIdle(long now) {
+        arrivals.values().removeIf(arrival -> arrival.get() - now <= 0);
+    }
+
+    // one sweep per emission interval at most, so a flood of new keys cannot turn every miss into a full scan
+    private boolean makeRoom(long now) {
+        final long due = nextSweep.get();
+        if (now - due >= 0 && nextSweep.compareAndSet(due, now + emissionInterval)) {
+            evictIdle(now);
+        }
+        return arrivals.size() < maximumKeys;
+    }
+}
@@ -0,0 +1,50 @@
+package com.agun.security.security;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records encode and verify time of the wrapped encoder. Both stacks and the
+ * authentication provider hash through this bean.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    private final Timer encodeTimer;
+
+    private final Timer verifyTimer;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate, AuthMetrics metrics) {
+        this.delegate = delegate;
+        this.encodeTimer = metrics.passwordEncode();
+        this.verifyTimer = metrics.passwordVerify();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        final long start = System.nanoTime();
+        try {
+            return this.delegate.encode(rawPassword);
+        } finally {
+            this.encodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        final long start = System.nanoTime();
+        try {
+            return this.delegate.matches(rawPassword, encodedPassword);
+        } finally {
+            this.verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return this.delegate.upgradeEncoding(encodedPassword);
+    }
+}
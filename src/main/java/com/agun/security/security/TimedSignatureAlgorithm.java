@@ -0,0 +1,84 @@
+package com.agun.security.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+import io.jsonwebtoken.security.SecureRequest;
+import io.jsonwebtoken.security.SignatureException;
+import io.jsonwebtoken.security.VerifySecureDigestRequest;
+
+import java.io.InputStream;
+import java.security.Key;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Times the signature check of a jjwt algorithm so {@link TokenManager} can split a parse
+ * into signature and parsing time. The duration of the last check is kept per thread and
+ * read right after the parser returns. A mismatch throws a {@link SignatureException}
+ * without a stack trace, jjwt would otherwise fill one in for every forged token.
+ */
+final class TimedSignatureAlgorithm<S extends Key, V extends Key> implements SecureDigestAlgorithm<S, V> {
+
+    private static final ThreadLocal<long[]> LAST_VERIFY_NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final SecureDigestAlgorithm<S, V> delegate;
+
+    private TimedSignatureAlgorithm(SecureDigestAlgorithm<S, V> delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Every standard JWS algorithm wrapped, to be added to a parser where it replaces the
+     * original with the same id.
+     */
+    static Collection<SecureDigestAlgorithm<?, ?>> standardAlgorithms() {
+        return Jwts.SIG.get().values().stream()
+                .<SecureDigestAlgorithm<?, ?>>map(TimedSignatureAlgorithm::wrap)
+                .toList();
+    }
+
+    static long lastVerifyNanos() {
+        return LAST_VERIFY_NANOS.get()[0];
+    }
+
+    private static <S extends Key, V extends Key> SecureDigestAlgorithm<S, V> wrap(SecureDigestAlgorithm<S, V> algorithm) {
+        return new TimedSignatureAlgorithm<>(algorithm);
+    }
+
+    @Override
+    public byte[] digest(SecureRequest<InputStream, S> request) {
+        return this.delegate.digest(request);
+    }
+
+    @Override
+    public boolean verify(VerifySecureDigestRequest<V> request) {
+        final long start = System.nanoTime();
+        final boolean valid;
+        try {
+            valid = this.delegate.verify(request);
+        } finally {
+            LAST_VERIFY_NANOS.get()[0] = System.nanoTime() - start;
+        }
+        if (!valid) {
+            throw new SignatureMismatchException();
+        }
+        return true;
+    }
+
+    @Override
+    public String getId() {
+        return this.delegate.getId();
+    }
+
+    static final class SignatureMismatchException extends SignatureException {
+
+        SignatureMismatchException() {
+            super("JWT signature does not match locally computed signature");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -1,39 +1,252 @@
 package com.agun.security.security;
 
+import com.agun.security.config.JwtProperties;
+import com.agun.security.constant.Role;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.impl.lang.Function;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 @Service
+@RequiredArgsConstructor
 public class TokenManager {
 
-    private final String SECRET_KEY = "NSIq5owaB28TAkUVqZmCovjTNd8E8RFOC6GJqeubOVAr7ReP0N7yTuQn8F9a9sqG";
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLE_CLAIM = "role";
+    static final String PERMISSIONS_CLAIM = "perm";
+
+    // compact profile: the subject is the user id and the role travels as its code
+    static final String ROLE_CODE_CLAIM = "r";
+    static final String PERMISSION_BITS_CLAIM = "p";
+
+    private final JwtKeyRing keyRing;
+
+    private final JwtProperties properties;
+
+    private final VerifiedTokenCache verificationCache;
+
+    private final AuthMetrics metrics;
 
     public String generateToken(UserDetails userDetails) {
-        Long expiration = (long) 1_0000 * 60 * 24;
-        return this.generateToken(new HashMap<>(), userDetails, expiration);
+        Long expiration = properties.getAccessTokenTtl().toMillis();
+        if (properties.isCompact() && userDetails instanceof AuthenticatedUser user && user.getId() != null) {
+            return this.generateCompactToken(user, expiration);
+        }
+        Map<String, Object> claims = new HashMap<>();
+        if (properties.isStateless() && userDetails instanceof AuthenticatedUser user) {
+            if (user.getId() != null) {
+                claims.put(USER_ID_CLAIM, user.getId().toString());
+            }
+            claims.put(ROLE_CLAIM, user.getRole().name());
+            claims.put(PERMISSIONS_CLAIM, user.getPermissions());
+        }
+        return this.generateToken(claims, userDetails, expiration);
     }
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails, Long expiration) {
+        final String keyId = keyRing.activeKeyId();
         return Jwts.builder()
+                .header().keyId(keyId).and()
                 .claims(extraClaims)
+                .id(UUID.randomUUID().toString())
                 .subject(userDetails.getUsername())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSecretKey())
+                .signWith(keyRing.signingKey(keyId))
+                .compact();
+    }
+
+    /**
+     * A compact profile token: the user id as subject instead of the email, the role code and
+     * permission bits under one letter names, ids in 22 base64url characters and no iat.
+     */
+    private String generateCompactToken(AuthenticatedUser user, long expiration) {
+        final String keyId = keyRing.activeKeyId();
+        return Jwts.builder()
+                .header().keyId(keyId).and()
+                .subject(encodeId(user.getId()))
+                .id(encodeId(UUID.randomUUID()))
+                .claim(ROLE_CODE_CLAIM, user.getRole().code())
+                .claim(PERMISSION_BITS_CLAIM, user.getPermissions())
+                .expiration(new Date(System.currentTimeMillis() + expiration))
+                .signWith(keyRing.signingKey(keyId))
                 .compact();
     }
 
+    /**
+     * Verifies the token without throwing for the usual ways it can be bad. A structural
+     * pre-check runs first, so malformed, foreign-key and expired tokens are rejected before
+     * any cryptography, and the rejections are preallocated results.
+     */
+    public VerificationResult check(String token) {
+        final VerificationResult.Rejection structural = TokenPrecheck.structure(
+                token, keyRing.knownHeaders(), keyRing.acceptsUnknownHeaders());
+        if (structural != null) {
+            return VerificationResult.rejected(structural);
+        }
+        final long now = System.currentTimeMillis();
+        if (TokenPrecheck.expired(token, now)) {
+            return VerificationResult.EXPIRED;
+        }
+        final VerificationResult fast = verifyFast(token, now);
+        if (fast != null) {
+            return fast;
+        }
+        try {
+            return VerificationResult.valid(parse(token, now));
+        } catch (ExpiredJwtException e) {
+            // expired between the pre-check and the parse
+            return VerificationResult.EXPIRED;
+        } catch (SecurityException e) {
+            return VerificationResult.BAD_SIGNATURE;
+        } catch (UnsupportedJwtException e) {
+            return VerificationResult.UNKNOWN_KEY;
+        } catch (JwtException | IllegalArgumentException e) {
+            return VerificationResult.MALFORMED;
+        }
+    }
+
+    /**
+     * Parses and verifies the token exactly once. Callers should keep the result
+     * instead of calling the extract* methods, each of which re-verifies the signature.
+     */
+    public VerifiedToken verify(String token) {
+        final long now = System.currentTimeMillis();
+        final VerificationResult fast = verifyFast(token, now);
+        if (fast == null) {
+            return parse(token, now);
+        }
+        if (fast.isValid()) {
+            return fast.token();
+        }
+        // the exceptions jjwt throws for the same token
+        if (fast.rejection() == VerificationResult.Rejection.EXPIRED) {
+            throw new ExpiredJwtException(null, null, "JWT expired");
+        }
+        throw new SignatureException("JWT signature does not match locally computed signature");
+    }
+
+    // a cache hit, or a compact token settled by the fast path; null leaves the token to jjwt
+    private VerificationResult verifyFast(String token, long now) {
+        final VerifiedToken cached = verificationCache.get(token, now);
+        // a retired key must stop verifying even for tokens already in the cache
+        if (cached != null && keyRing.verificationKey(cached.keyId()) != null) {
+            return VerificationResult.valid(cached);
+        }
+        if (!properties.isCompact()) {
+            return null;
+        }
+        final VerificationResult result = CompactTokenParser.parse(token, keyRing.hmacKeys(), now, metrics);
+        if (result != null && result.isValid()) {
+            verificationCache.put(token, result.token(), now);
+        }
+        return result;
+    }
+
+    private VerifiedToken parse(String token, long now) {
+        final long start = System.nanoTime();
+        final Jws<Claims> jws = keyRing.parser().parseSignedClaims(token);
+        metrics.tokenVerified(System.nanoTime() - start, TimedSignatureAlgorithm.lastVerifyNanos());
+        final Claims claims = jws.getPayload();
+        final VerifiedToken verified = new VerifiedToken(
+                jws.getHeader().getKeyId(),
+                claims.getId(),
+                claims.getSubject(),
+                toInstant(claims.getIssuedAt()),
+                toInstant(claims.getExpiration()),
+                Collections.unmodifiableMap(claims)
+        );
+        verificationCache.put(token, verified, now);
+        return verified;
+    }
+
+    /**
+     * Builds the principal straight from the claims in stateless mode. Returns null when the
+     * mode is off or the token predates it, in which case the caller loads the user instead.
+     */
+    public AuthenticatedUser toPrincipal(VerifiedToken token) {
+        if (!properties.isStateless()) {
+            return null;
+        }
+        final Number roleCode = token.claim(ROLE_CODE_CLAIM, Number.class);
+        if (roleCode != null) {
+            final Role role = Role.ofCode(roleCode.intValue());
+            final Number permissions = token.claim(PERMISSION_BITS_CLAIM, Number.class);
+            final UUID userId = userIdOf(token.subject());
+            if (role == null || permissions == null || userId == null) {
+                return null;
+            }
+            return new TokenPrincipal(userId, token.subject(), role, permissions.longValue());
+        }
+        final String userId = token.claim(USER_ID_CLAIM, String.class);
+        final String role = token.claim(ROLE_CLAIM, String.class);
+        if (userId == null || role == null || token.subject() == null) {
+            return null;
+        }
+        final Role parsedRole = Role.valueOf(role);
+        // tokens issued before the claim existed get the role's current permissions
+        final Number permissions = token.claim(PERMISSIONS_CLAIM, Number.class);
+        return new TokenPrincipal(UUID.fromString(userId), token.subject(), parsedRole,
+                permissions == null ? parsedRole.permissions() : permissions.longValue());
+    }
+
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        return token.subject() != null
+                && (token.subject().equals(userDetails.getUsername()) || isUserId(token.subject(), userDetails))
+                && !token.isExpired(Instant.now());
+    }
+
+    /**
+     * Compact profile subjects are user ids in 22 base64url characters, other subjects are
+     * emails, which always hold an {@code @} outside that alphabet.
+     *
+     * @return the user id, or null when the subject is not one
+     */
+    public static UUID userIdOf(String subject) {
+        if (subject == null || subject.length() != 22) {
+            return null;
+        }
+        final byte[] bytes = TokenPrecheck.decode(subject, 0, subject.length());
+        if (bytes == null) {
+            return null;
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    /**
+     * The compact profile subject for a user id, also the key its user details are cached under.
+     */
+    public static String encodeId(UUID id) {
+        final ByteBuffer bytes = ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.array());
+    }
+
+    private static boolean isUserId(String subject, UserDetails userDetails) {
+        return userDetails instanceof AuthenticatedUser user
+                && user.getId() != null
+                && user.getId().equals(userIdOf(subject));
+    }
+
     public Boolean isTokenValid(String token, UserDetails userDetails) {
         final String username = extractUsername(token);
         return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
@@ -57,15 +270,12 @@ public class TokenManager {
     }
 
     private Claims extractClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSecretKey())
-                .build()
+        return keyRing.parser()
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
-    private SecretKey getSecretKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static Instant toInstant(Date date) {
+        return date == null ? null : date.toInstant();
     }
 }
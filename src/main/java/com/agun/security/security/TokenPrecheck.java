@@ -0,0 +1,134 @@
+package com.agun.security.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Structural checks run on a bearer value before any cryptography: length bounds, three
+ * non-empty base64url segments, a header we would have written ourselves and an exp claim
+ * that has not passed. Garbage and replayed expired tokens are turned away here for the cost
+ * of one scan, without building an exception.
+ */
+final class TokenPrecheck {
+
+    static final int MIN_LENGTH = 16;
+
+    static final int MAX_LENGTH = 4096;
+
+    private static final byte[] EXP_KEY = "\"exp\":".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int[] BASE64URL = new int[128];
+
+    static {
+        Arrays.fill(BASE64URL, -1);
+        final String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64URL[alphabet.charAt(i)] = i;
+        }
+    }
+
+    private TokenPrecheck() {
+    }
+
+    /**
+     * Returns the rejection, or null when the token is worth verifying. Headers outside
+     * {@code knownHeaders} pass only when {@code acceptUnknownHeaders} is set, i.e. when a
+     * remote JWKS may know the key.
+     */
+    static VerificationResult.Rejection structure(String token, List<String> knownHeaders, boolean acceptUnknownHeaders) {
+        final int length = token.length();
+        if (length < MIN_LENGTH || length > MAX_LENGTH) {
+            return VerificationResult.Rejection.MALFORMED;
+        }
+        int firstDot = -1;
+        int secondDot = -1;
+        for (int i = 0; i < length; i++) {
+            final char c = token.charAt(i);
+            if (c == '.') {
+                if (firstDot < 0) {
+                    firstDot = i;
+                } else if (secondDot < 0) {
+                    secondDot = i;
+                } else {
+                    return VerificationResult.Rejection.MALFORMED;
+                }
+            } else if (c >= 128 || BASE64URL[c] < 0) {
+                return VerificationResult.Rejection.MALFORMED;
+            }
+        }
+        if (firstDot <= 0 || secondDot <= firstDot + 1 || secondDot == length - 1) {
+            return VerificationResult.Rejection.MALFORMED;
+        }
+        for (int i = 0; i < knownHeaders.size(); i++) {
+            final String header = knownHeaders.get(i);
+            if (header.length() == firstDot && token.regionMatches(0, header, 0, firstDot)) {
+                return null;
+            }
+        }
+        return acceptUnknownHeaders ? null : VerificationResult.Rejection.UNKNOWN_KEY;
+    }
+
+    /**
+     * Reads the exp claim straight from the payload. A forged exp can only get a token
+     * rejected earlier; the signature still decides acceptance.
+     */
+    static boolean expired(String token, long nowMillis) {
+        final int start = token.indexOf('.') + 1;
+        final int end = token.indexOf('.', start);
+        final byte[] payload = decode(token, start, end);
+        if (payload == null) {
+            return false;
+        }
+        final int at = indexOf(payload, EXP_KEY);
+        if (at < 0) {
+            return false;
+        }
+        long exp = 0;
+        int digits = 0;
+        for (int i = at + EXP_KEY.length; i < payload.length && payload[i] >= '0' && payload[i] <= '9' && digits < 18; i++, digits++) {
+            exp = exp * 10 + (payload[i] - '0');
+        }
+        return digits > 0 && exp * 1000 <= nowMillis;
+    }
+
+    /**
+     * Decodes unpadded base64url, or returns null when the range is not valid base64url.
+     */
+    static byte[] decode(String token, int start, int end) {
+        final int chars = end - start;
+        if (chars % 4 == 1) {
+            return null;
+        }
+        final byte[] out = new byte[chars * 3 / 4];
+        int buffer = 0;
+        int bits = 0;
+        int position = 0;
+        for (int i = start; i < end; i++) {
+            final char c = token.charAt(i);
+            if (c >= 128 || BASE64URL[c] < 0) {
+                return null;
+            }
+            buffer = (buffer << 6) | BASE64URL[c];
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                out[position++] = (byte) (buffer >> bits);
+            }
+        }
+        return out;
+    }
+
+    private static int indexOf(byte[] haystack, byte[] needle) {
+        outer:
+        for (int i = 0; i <= haystack.length - needle.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
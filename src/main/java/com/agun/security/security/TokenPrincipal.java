@@ -0,0 +1,63 @@
+package com.agun.security.security;
+
+import com.agun.security.constant.Role;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Principal rebuilt from verified token claims in stateless mode, no database row behind it.
+ */
+public record TokenPrincipal(UUID id, String email, Role role, long permissions) implements AuthenticatedUser {
+
+    @Override
+    public UUID getId() {
+        return this.id;
+    }
+
+    @Override
+    public Role getRole() {
+        return this.role;
+    }
+
+    @Override
+    public long getPermissions() {
+        return this.permissions;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return this.role.authorities(this.permissions);
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return this.email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,139 @@
+package com.agun.security.security;
+
+import com.agun.security.config.JwtProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Denylist of revoked token ids. Revocations are stored in {@code revoked_tokens} and mirrored
+ * in memory as a Bloom filter in front of an exact set, so the common not-revoked check is a
+ * few bit reads and never reaches the database. Other nodes' revocations are picked up by
+ * polling the table.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    // rough heap cost of one ConcurrentHashMap node, a Long and a 36 char UUID string
+    private static final int EXACT_ENTRY_BYTES = 32 + 16 + 24 + 56;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JwtProperties.Revocation properties;
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter bloomFilter;
+
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    public TokenRevocationService(JdbcTemplate jdbcTemplate, JwtProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties.getRevocation();
+        this.bloomFilter = newBloomFilter(0);
+    }
+
+    @Autowired
+    public TokenRevocationService(JdbcTemplate jdbcTemplate, JwtProperties properties, AuthMetrics metrics) {
+        this(jdbcTemplate, properties);
+        metrics.revocations(this);
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        final long start = System.nanoTime();
+        final Instant syncStart = Instant.now();
+        revoked.clear();
+        jdbcTemplate.query(
+                "SELECT jti, expires_at FROM revoked_tokens WHERE expires_at > ?",
+                rs -> {
+                    revoked.put(rs.getString(1), rs.getTimestamp(2).getTime());
+                },
+                Timestamp.from(syncStart)
+        );
+        BloomFilter rebuilt = newBloomFilter(revoked.size());
+        revoked.keySet().forEach(rebuilt::put);
+        this.bloomFilter = rebuilt;
+        this.lastSync = syncStart;
+        log.info("Loaded {} revoked tokens in {} ms, {} bytes each", revoked.size(),
+                (System.nanoTime() - start) / 1_000_000, stats().bytesPerRevokedToken());
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null || !bloomFilter.mightContain(tokenId)) {
+            return false;
+        }
+        return revoked.containsKey(tokenId);
+    }
+
+    public void revoke(String tokenId, Instant expiresAt) {
+        if (tokenId == null || expiresAt == null || !expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        jdbcTemplate.update(
+                "INSERT INTO revoked_tokens (jti, expires_at, revoked_at) VALUES (?, ?, ?) ON CONFLICT (jti) DO NOTHING",
+                tokenId, Timestamp.from(expiresAt), Timestamp.from(Instant.now())
+        );
+        remember(tokenId, expiresAt.toEpochMilli());
+    }
+
+    @Scheduled(fixedDelayString = "${application.security.jwt.revocation.sync-interval:PT10S}")
+    public void sync() {
+        // overlap the window a little so commits racing the previous poll are not missed
+        final Instant since = lastSync.minus(properties.getSyncInterval());
+        final Instant syncStart = Instant.now();
+        jdbcTemplate.query(
+                "SELECT jti, expires_at FROM revoked_tokens WHERE revoked_at >= ? AND expires_at > ?",
+                rs -> {
+                    remember(rs.getString(1), rs.getTimestamp(2).getTime());
+                },
+                Timestamp.from(since), Timestamp.from(syncStart)
+        );
+        this.lastSync = syncStart;
+    }
+
+    @Scheduled(fixedDelayString = "${application.security.jwt.revocation.purge-interval:PT10M}")
+    public void purgeExpired() {
+        final long now = System.currentTimeMillis();
+        int purged = jdbcTemplate.update("DELETE FROM revoked_tokens WHERE expires_at < ?", new Timestamp(now));
+        revoked.values().removeIf(expiresAt -> expiresAt < now);
+
+        // bits cannot be cleared, so start a fresh filter sized for what is left
+        BloomFilter rebuilt = newBloomFilter(revoked.size());
+        revoked.keySet().forEach(rebuilt::put);
+        this.bloomFilter = rebuilt;
+        // entries revoked while rebuilding went into the old filter only
+        revoked.keySet().forEach(rebuilt::put);
+        if (purged > 0) {
+            log.info("Purged {} expired revocations", purged);
+        }
+    }
+
+    public Stats stats() {
+        final int count = revoked.size();
+        final long bloomBytes = bloomFilter.sizeInBytes();
+        final long totalBytes = bloomBytes + (long) count * EXACT_ENTRY_BYTES;
+        return new Stats(count, bloomBytes, count == 0 ? 0 : totalBytes / count);
+    }
+
+    private void remember(String tokenId, long expiresAtMillis) {
+        // set first, then filter, so a reader that passes the filter always finds the entry
+        revoked.put(tokenId, expiresAtMillis);
+        bloomFilter.put(tokenId);
+    }
+
+    private BloomFilter newBloomFilter(int entries) {
+        return new BloomFilter(Math.max(properties.getExpectedRevocations(), entries * 2), properties.getFalsePositiveRate());
+    }
+
+    public record Stats(int revokedTokens, long bloomFilterBytes, long bytesPerRevokedToken) {
+    }
+}
@@ -0,0 +1,60 @@
+package com.agun.security.security;
+
+import com.agun.security.constant.Role;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * The columns authentication reads, selected straight into a record by
+ * {@code UserRepository.findCredentialsByEmail}. Never a managed entity, so Hibernate keeps no
+ * snapshot of it and has nothing to dirty check.
+ */
+public record UserCredentials(UUID id, String email, String password, Role role) implements AuthenticatedUser {
+
+    @Override
+    public UUID getId() {
+        return this.id;
+    }
+
+    @Override
+    public Role getRole() {
+        return this.role;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return this.role.authorities();
+    }
+
+    @Override
+    public String getPassword() {
+        return this.password;
+    }
+
+    @Override
+    public String getUsername() {
+        return this.email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,142 @@
+package com.agun.security.security;
+
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, TTL based cache in front of a {@link UserDetailsService}. Concurrent misses for
+ * the same username share one in-flight load, and {@link #evict(String)} must be called
+ * whenever the stored user changes.
+ */
+public class UserDetailsCache implements UserDetailsService {
+
+    private static final int EVICTION_SAMPLE_SIZE = 16;
+
+    private final UserDetailsService delegate;
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<UserDetails>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public UserDetailsCache(UserDetailsService delegate, int maximumSize, Duration ttl) {
+        this(delegate, maximumSize, ttl, System::nanoTime);
+    }
+
+    UserDetailsCache(UserDetailsService delegate, int maximumSize, Duration ttl, LongSupplier nanoClock) {
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        final long now = nanoClock.getAsLong();
+        final Entry entry = entries.get(username);
+        if (entry != null) {
+            if (now - entry.expiresAt < 0) {
+                hits.increment();
+                return entry.user;
+            }
+            if (entries.remove(username, entry)) {
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return load(username);
+    }
+
+    public void evict(String username) {
+        entries.compute(username, (key, old) -> {
+            // drop in-flight loads too so they cannot repopulate a stale value
+            loading.remove(key);
+            if (old != null) {
+                evictions.increment();
+            }
+            return null;
+        });
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    private UserDetails load(String username) {
+        final CompletableFuture<UserDetails> flight = new CompletableFuture<>();
+        final CompletableFuture<UserDetails> existing = loading.putIfAbsent(username, flight);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            final UserDetails user = delegate.loadUserByUsername(username);
+            store(username, user, flight);
+            flight.complete(user);
+            return user;
+        } catch (RuntimeException e) {
+            loading.remove(username, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void store(String username, UserDetails user, CompletableFuture<UserDetails> flight) {
+        if (maximumSize <= 0) {
+            loading.remove(username, flight);
+            return;
+        }
+        if (entries.size() >= maximumSize) {
+            makeRoom();
+        }
+        final Entry entry = new Entry(user, nanoClock.getAsLong() + ttlNanos);
+        entries.compute(username, (key, old) -> loading.remove(key, flight) ? entry : old);
+    }
+
+    private void makeRoom() {
+        // evict the entry closest to (or past) expiry among a small sample
+        Map.Entry<String, Entry> victim = null;
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        for (int i = 0; i < EVICTION_SAMPLE_SIZE && iterator.hasNext(); i++) {
+            Map.Entry<String, Entry> candidate = iterator.next();
+            if (victim == null || candidate.getValue().expiresAt - victim.getValue().expiresAt < 0) {
+                victim = candidate;
+            }
+        }
+        if (victim != null && entries.remove(victim.getKey(), victim.getValue())) {
+            evictions.increment();
+        }
+    }
+
+    private static UserDetails await(CompletableFuture<UserDetails> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public record Stats(long hits, long misses, long evictions, int size) {
+    }
+
+    private record Entry(UserDetails user, long expiresAt) {
+    }
+}
@@ -0,0 +1,37 @@
+package com.agun.security.security;
+
+/**
+ * Outcome of {@link TokenManager#check}: either a verified token or the reason it was
+ * rejected. Rejections are shared constants, so turning a bad token away allocates nothing.
+ */
+public record VerificationResult(VerifiedToken token, Rejection rejection) {
+
+    public static final VerificationResult MALFORMED = new VerificationResult(null, Rejection.MALFORMED);
+    public static final VerificationResult UNKNOWN_KEY = new VerificationResult(null, Rejection.UNKNOWN_KEY);
+    public static final VerificationResult EXPIRED = new VerificationResult(null, Rejection.EXPIRED);
+    public static final VerificationResult BAD_SIGNATURE = new VerificationResult(null, Rejection.BAD_SIGNATURE);
+
+    public static VerificationResult valid(VerifiedToken token) {
+        return new VerificationResult(token, null);
+    }
+
+    public static VerificationResult rejected(Rejection rejection) {
+        return switch (rejection) {
+            case MALFORMED -> MALFORMED;
+            case UNKNOWN_KEY -> UNKNOWN_KEY;
+            case EXPIRED -> EXPIRED;
+            case BAD_SIGNATURE -> BAD_SIGNATURE;
+        };
+    }
+
+    public boolean isValid() {
+        return this.token != null;
+    }
+
+    public enum Rejection {
+        MALFORMED,
+        UNKNOWN_KEY,
+        EXPIRED,
+        BAD_SIGNATURE
+    }
+}
@@ -0,0 +1,20 @@
+package com.agun.security.security;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Immutable result of a single signature-checked parse of a bearer token.
+ */
+public record VerifiedToken(String keyId, String tokenId, String subject, Instant issuedAt, Instant expiresAt,
+                            Map<String, Object> claims) {
+
+    public boolean isExpired(Instant now) {
+        return this.expiresAt != null && this.expiresAt.isBefore(now);
+    }
+
+    public <T> T claim(String name, Class<T> type) {
+        Object value = this.claims.get(name);
+        return type.isInstance(value) ? type.cast(value) : null;
+    }
+}
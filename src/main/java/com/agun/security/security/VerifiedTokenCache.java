@@ -0,0 +1,142 @@
+package com.agun.security.security;
+
+import com.agun.security.config.JwtProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional cache of verification results keyed by a 128-bit SHA-256 prefix of the token.
+ * Reads go through {@link ConcurrentHashMap#get} and never lock; an entry never outlives
+ * the {@code exp} of the token it was created for.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final int EVICTION_SAMPLE_SIZE = 16;
+
+    private static final InstancePool<MessageDigest> SHA_256 = new InstancePool<>(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final boolean enabled;
+    private final int maximumSize;
+    private final long ttlMillis;
+
+    private final ConcurrentHashMap<Digest, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public VerifiedTokenCache(JwtProperties properties) {
+        JwtProperties.VerificationCache config = properties.getVerificationCache();
+        this.enabled = config.isEnabled() && config.getMaximumSize() > 0;
+        this.maximumSize = config.getMaximumSize();
+        this.ttlMillis = config.getTtl().toMillis();
+    }
+
+    @Autowired
+    public VerifiedTokenCache(JwtProperties properties, AuthMetrics metrics) {
+        this(properties);
+        metrics.tokenCache(this);
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public VerifiedToken get(String token, long nowMillis) {
+        if (!enabled) {
+            return null;
+        }
+        final Digest digest = digest(token);
+        final Entry entry = entries.get(digest);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (nowMillis >= entry.expiresAt) {
+            entries.remove(digest, entry);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.token;
+    }
+
+    public void put(String token, VerifiedToken verified, long nowMillis) {
+        if (!enabled) {
+            return;
+        }
+        long expiresAt = nowMillis + ttlMillis;
+        if (verified.expiresAt() != null) {
+            expiresAt = Math.min(expiresAt, verified.expiresAt().toEpochMilli());
+        }
+        if (expiresAt <= nowMillis) {
+            return;
+        }
+        if (entries.size() >= maximumSize) {
+            makeRoom();
+        }
+        entries.put(digest(token), new Entry(verified, expiresAt));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), entries.size());
+    }
+
+    private void makeRoom() {
+        Map.Entry<Digest, Entry> victim = null;
+        Iterator<Map.Entry<Digest, Entry>> iterator = entries.entrySet().iterator();
+        for (int i = 0; i < EVICTION_SAMPLE_SIZE && iterator.hasNext(); i++) {
+            Map.Entry<Digest, Entry> candidate = iterator.next();
+            if (victim == null || candidate.getValue().expiresAt < victim.getValue().expiresAt) {
+                victim = candidate;
+            }
+        }
+        if (victim != null) {
+            entries.remove(victim.getKey(), victim.getValue());
+        }
+    }
+
+    private static Digest digest(String token) {
+        final MessageDigest sha256 = SHA_256.borrow();
+        final ByteBuffer hash;
+        try {
+            hash = ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } finally {
+            SHA_256.release(sha256);
+        }
+        return new Digest(hash.getLong(), hash.getLong());
+    }
+
+    public record Stats(long hits, long misses, int size) {
+
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+
+    private record Digest(long high, long low) {
+    }
+
+    private record Entry(VerifiedToken token, long expiresAt) {
+    }
+}
@@ -3,27 +3,43 @@ package com.agun.security.service;
 import com.agun.security.dto.AuthenticationResponse;
 import com.agun.security.dto.DefaultResponse;
 import com.agun.security.dto.LoginRequest;
+import com.agun.security.dto.RefreshRequest;
 import com.agun.security.dto.RegisterRequest;
 import com.agun.security.constant.Role;
 import com.agun.security.model.User;
 import com.agun.security.repository.UserRepository;
+import com.agun.security.security.AuthenticatedUser;
+import com.agun.security.security.PasswordHashingExecutor;
 import com.agun.security.security.TokenManager;
+import com.agun.security.security.TokenRevocationService;
+import com.agun.security.security.UserDetailsCache;
+import com.agun.security.security.VerifiedToken;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.UUID;
+
 import static java.util.Collections.singletonList;
 
 @Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 @Slf4j
 public class AuthService {
 
+    // the unique index on lower(email) from V2
+    private static final String EMAIL_UNIQUE_INDEX = "users_email_normalized_key";
+
     private final UserRepository userRepository;
 
     private final PasswordEncoder passwordEncoder;
@@ -32,56 +48,109 @@ public class AuthService {
 
     private final AuthenticationManager authenticationManager;
 
-    public DefaultResponse<AuthenticationResponse> register(RegisterRequest request) {
+    private final UserDetailsCache userDetailsCache;
 
-        // validate email
-        if (this.userRepository.existsByEmail(request.getEmail())) {
-            throw new IllegalArgumentException("Username already taken");
-        }
+    private final PasswordHashingExecutor hashingExecutor;
+
+    private final RefreshTokenService refreshTokenService;
+
+    private final TokenRevocationService revocationService;
+
+    public DefaultResponse<AuthenticationResponse> register(RegisterRequest request) {
 
         // hash the password
-        final String hashedPassword = this.passwordEncoder.encode(request.getPassword());
+        final String hashedPassword = this.hashingExecutor.execute(() -> this.passwordEncoder.encode(request.getPassword()));
 
         // store new user to database
         User newUser = User.builder()
                 .firstName(request.getFirstName())
                 .lastName(request.getLastName())
-                .email(request.getEmail())
+                .email(User.normalizeEmail(request.getEmail()))
                 .password(hashedPassword)
                 .role(Role.USER)
                 .build();
 
-        this.userRepository.save(newUser);
+        // a single insert, the unique index on lower(email) rejects taken emails
+        try {
+            this.userRepository.saveAndFlush(newUser);
+        } catch (DataIntegrityViolationException e) {
+            // other violations, such as a value too long for its column, are not a taken email
+            final String message = e.getMostSpecificCause().getMessage();
+            if (message != null && message.contains(EMAIL_UNIQUE_INDEX)) {
+                throw new IllegalArgumentException("Username already taken");
+            }
+            throw e;
+        }
+        this.userDetailsCache.evict(newUser.getEmail());
 
-        // generate access token
+        // generate access and refresh token
         final String token = tokenManager.generateToken(newUser);
+        final String refreshToken = refreshTokenService.issue(newUser.getId());
 
         return DefaultResponse.<AuthenticationResponse>builder()
                 .status(HttpStatus.Series.SUCCESSFUL.name())
                 .message(HttpStatus.CREATED.name())
-                .data(singletonList(new AuthenticationResponse(token)))
+                .data(singletonList(new AuthenticationResponse(token, refreshToken)))
                 .build();
     }
 
     public DefaultResponse<AuthenticationResponse> login(LoginRequest request) {
 
-        User user = this.userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new IllegalArgumentException("Username or password incorrect"));
+        // the user details service also resolves the user ids compact tokens carry, logins go by email only
+        if (TokenManager.userIdOf(request.getEmail()) != null) {
+            throw new BadCredentialsException("Username or password incorrect");
+        }
 
-        this.authenticationManager.authenticate(
+        // the provider loads the user once, its principal is reused for the rehash check and the token;
+        // its password encoder runs the hash check on the hashing pool
+        final Authentication authentication = this.authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
-                        request.getEmail(),
+                        User.normalizeEmail(request.getEmail()),
                         request.getPassword()
                 )
         );
+        final AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+
+        // upgrade hashes written with an older algorithm or cost while the raw password is at hand
+        if (this.passwordEncoder.upgradeEncoding(user.getPassword())) {
+            final String upgradedPassword = this.hashingExecutor.execute(() -> this.passwordEncoder.encode(request.getPassword()));
+            this.userRepository.updatePassword(user.getId(), upgradedPassword);
+            // cached under the email for logins and classic tokens, under the encoded id for compact ones
+            this.userDetailsCache.evict(user.getUsername());
+            this.userDetailsCache.evict(TokenManager.encodeId(user.getId()));
+        }
 
         final String token = tokenManager.generateToken(user);
+        final String refreshToken = refreshTokenService.issue(user.getId());
+
+        return DefaultResponse.<AuthenticationResponse>builder()
+                .status(HttpStatus.Series.SUCCESSFUL.name())
+                .message(HttpStatus.OK.name())
+                .data(singletonList(new AuthenticationResponse(token, refreshToken)))
+                .build();
+    }
+
+    public DefaultResponse<AuthenticationResponse> refresh(RefreshRequest request) {
+
+        // no password check, the rotated refresh token proves the session
+        final RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+        final String token = tokenManager.generateToken(rotation.user());
 
         return DefaultResponse.<AuthenticationResponse>builder()
                 .status(HttpStatus.Series.SUCCESSFUL.name())
                 .message(HttpStatus.OK.name())
-                .data(singletonList(new AuthenticationResponse(token)))
+                .data(singletonList(new AuthenticationResponse(token, rotation.refreshToken())))
                 .build();
     }
 
+    public void logout(VerifiedToken accessToken, UUID userId, String refreshToken) {
+
+        // the access token stays signed and unexpired, so it has to be denylisted until exp
+        this.revocationService.revoke(accessToken.tokenId(), accessToken.expiresAt());
+
+        if (refreshToken != null) {
+            this.refreshTokenService.revoke(userId, refreshToken);
+        }
+    }
+
 }
@@ -0,0 +1,144 @@
+package com.agun.security.service;
+
+import com.agun.security.config.JwtProperties;
+import com.agun.security.constant.Role;
+import com.agun.security.dto.AuthenticationResponse;
+import com.agun.security.dto.DefaultResponse;
+import com.agun.security.dto.LoginRequest;
+import com.agun.security.dto.RefreshRequest;
+import com.agun.security.dto.RegisterRequest;
+import com.agun.security.model.User;
+import com.agun.security.repository.ReactiveRefreshTokenRepository;
+import com.agun.security.repository.ReactiveUserRepository;
+import com.agun.security.security.AuthenticatedUser;
+import com.agun.security.security.PasswordHashingExecutor;
+import com.agun.security.security.TokenManager;
+import com.agun.security.security.TokenRevocationService;
+import com.agun.security.security.VerifiedToken;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * Non-blocking {@link AuthService}. Hashing runs on the bounded {@link PasswordHashingExecutor},
+ * users and issued refresh tokens go through R2DBC. Refresh and logout are rare and reuse the
+ * JDBC-backed services on the bounded elastic scheduler.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveAuthService {
+
+    private final ReactiveUserRepository userRepository;
+
+    private final ReactiveRefreshTokenRepository refreshTokenRepository;
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final TokenManager tokenManager;
+
+    private final PasswordHashingExecutor hashingExecutor;
+
+    private final RefreshTokenService refreshTokenService;
+
+    private final TokenRevocationService revocationService;
+
+    private final JwtProperties properties;
+
+    // hashed once on first use, unknown emails are checked against it so they cost as much as a wrong password
+    private volatile String userNotFoundPassword;
+
+    public Mono<DefaultResponse<AuthenticationResponse>> register(RegisterRequest request) {
+        return hash(() -> this.passwordEncoder.encode(request.getPassword()))
+                .map(hashedPassword -> User.builder()
+                        .id(UUID.randomUUID())
+                        .firstName(request.getFirstName())
+                        .lastName(request.getLastName())
+                        .email(User.normalizeEmail(request.getEmail()))
+                        .password(hashedPassword)
+                        .role(Role.USER)
+                        .build())
+                .flatMap(newUser -> this.userRepository.insert(newUser)
+                        .flatMap(inserted -> inserted
+                                ? respond(newUser, HttpStatus.CREATED)
+                                : Mono.error(new IllegalArgumentException("Username already taken"))));
+    }
+
+    public Mono<DefaultResponse<AuthenticationResponse>> login(LoginRequest request) {
+        final String rawPassword = request.getPassword();
+        return this.userRepository.findCredentialsByEmail(User.normalizeEmail(request.getEmail()))
+                .switchIfEmpty(Mono.defer(() -> hash(() -> this.passwordEncoder.matches(rawPassword, userNotFoundPassword()))
+                        .then(Mono.empty())))
+                .filterWhen(user -> hash(() -> this.passwordEncoder.matches(rawPassword, user.getPassword())))
+                .switchIfEmpty(Mono.error(() -> new BadCredentialsException("Username or password incorrect")))
+                .flatMap(user -> upgradeEncoding(user, rawPassword).thenReturn(user))
+                .flatMap(user -> respond(user, HttpStatus.OK));
+    }
+
+    public Mono<DefaultResponse<AuthenticationResponse>> refresh(RefreshRequest request) {
+        return Mono.fromCallable(() -> this.refreshTokenService.rotate(request.getRefreshToken()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(rotation -> response(
+                        HttpStatus.OK,
+                        this.tokenManager.generateToken(rotation.user()),
+                        rotation.refreshToken()));
+    }
+
+    public Mono<Void> logout(VerifiedToken accessToken, UUID userId, String refreshToken) {
+        return Mono.fromRunnable(() -> {
+                    this.revocationService.revoke(accessToken.tokenId(), accessToken.expiresAt());
+                    if (refreshToken != null) {
+                        this.refreshTokenService.revoke(userId, refreshToken);
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    private Mono<Void> upgradeEncoding(AuthenticatedUser user, String rawPassword) {
+        if (!this.passwordEncoder.upgradeEncoding(user.getPassword())) {
+            return Mono.empty();
+        }
+        return hash(() -> this.passwordEncoder.encode(rawPassword))
+                .flatMap(upgradedPassword -> this.userRepository.updatePassword(user.getId(), upgradedPassword));
+    }
+
+    private Mono<DefaultResponse<AuthenticationResponse>> respond(AuthenticatedUser user, HttpStatus status) {
+        final String token = this.tokenManager.generateToken(user);
+        final String refreshToken = RefreshTokenService.newToken();
+        final Instant now = Instant.now();
+        return this.refreshTokenRepository
+                .insert(user.getId(), RefreshTokenService.hash(refreshToken), now, now.plus(this.properties.getRefreshTokenTtl()))
+                .thenReturn(response(status, token, refreshToken));
+    }
+
+    private <T> Mono<T> hash(Supplier<T> task) {
+        return Mono.fromFuture(() -> this.hashingExecutor.submit(task));
+    }
+
+    private String userNotFoundPassword() {
+        if (this.userNotFoundPassword == null) {
+            this.userNotFoundPassword = this.passwordEncoder.encode("userNotFoundPassword");
+        }
+        return this.userNotFoundPassword;
+    }
+
+    private static DefaultResponse<AuthenticationResponse> response(HttpStatus status, String token, String refreshToken) {
+        return DefaultResponse.<AuthenticationResponse>builder()
+                .status(HttpStatus.Series.SUCCESSFUL.name())
+                .message(status.name())
+                .data(singletonList(new AuthenticationResponse(token, refreshToken)))
+                .build();
+    }
+}
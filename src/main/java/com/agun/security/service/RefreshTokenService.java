@@ -0,0 +1,128 @@
+package com.agun.security.service;
+
+import com.agun.security.config.JwtProperties;
+import com.agun.security.exception.InvalidTokenException;
+import com.agun.security.model.RefreshToken;
+import com.agun.security.model.User;
+import com.agun.security.repository.RefreshTokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    private final RefreshTokenUsageRecorder usageRecorder;
+
+    private final JwtProperties properties;
+
+    public String issue(UUID userId) {
+        final String token = newToken();
+        final Instant now = Instant.now();
+        this.refreshTokenRepository.save(RefreshToken.builder()
+                .userId(userId)
+                .tokenHash(hash(token))
+                .createdAt(now)
+                .expiresAt(expiresAt(now, now))
+                .build());
+        return token;
+    }
+
+    /**
+     * Swaps the presented refresh token for a new one. A token that was already rotated,
+     * expired or never issued is rejected. A token that was already rotated means two parties
+     * hold the session, so the whole session is revoked.
+     */
+    @Transactional(noRollbackFor = InvalidTokenException.class)
+    public Rotation rotate(String token) {
+        final String currentHash = hash(token);
+        final Instant now = Instant.now();
+
+        // one indexed lookup, the user comes back in the same query
+        final RefreshToken refreshToken = this.refreshTokenRepository.findByTokenHash(currentHash)
+                .orElseGet(() -> {
+                    revokeReusedSession(currentHash);
+                    return null;
+                });
+        if (refreshToken == null || !refreshToken.getExpiresAt().isAfter(now)) {
+            throw new InvalidTokenException("Invalid refresh token");
+        }
+
+        final String nextToken = newToken();
+        final int rotated = this.refreshTokenRepository.rotate(
+                refreshToken.getId(),
+                currentHash,
+                hash(nextToken),
+                expiresAt(refreshToken.getCreatedAt(), now)
+        );
+        if (rotated == 0) {
+            throw new InvalidTokenException("Invalid refresh token");
+        }
+        this.refreshTokenRepository.markUsed(refreshToken.getId(), currentHash);
+
+        this.usageRecorder.record(refreshToken.getId(), now);
+        return new Rotation(refreshToken.getUser(), nextToken);
+    }
+
+    // only the caller's own session, a refresh token of another user is left alone
+    public void revoke(UUID userId, String token) {
+        this.refreshTokenRepository.deleteByTokenHashAndUserId(hash(token), userId);
+    }
+
+    private void revokeReusedSession(String tokenHash) {
+        this.refreshTokenRepository.findIdByUsedTokenHash(tokenHash).ifPresent(id -> {
+            this.refreshTokenRepository.deleteSession(id);
+            log.warn("Rotated refresh token presented again, revoked session {}", id);
+        });
+    }
+
+    // sliding by the token TTL, but never past the session's maximum age
+    private Instant expiresAt(Instant sessionStart, Instant now) {
+        final Instant sliding = now.plus(properties.getRefreshTokenTtl());
+        final Instant absolute = sessionStart.plus(properties.getRefreshSessionMaxAge());
+        return sliding.isBefore(absolute) ? sliding : absolute;
+    }
+
+    @Scheduled(fixedDelayString = "${application.security.jwt.refresh-token-purge-interval:PT1H}")
+    public void purgeExpired() {
+        int purged = this.refreshTokenRepository.deleteExpired(Instant.now());
+        if (purged > 0) {
+            log.info("Purged {} expired refresh tokens", purged);
+        }
+    }
+
+    static String newToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    static String hash(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Rotation(User user, String refreshToken) {
+    }
+}
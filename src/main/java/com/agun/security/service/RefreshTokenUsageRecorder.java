@@ -0,0 +1,64 @@
+package com.agun.security.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects refresh token last-used timestamps in memory and writes them in one JDBC batch
+ * per flush interval instead of one UPDATE per refresh. Repeated uses of a token between
+ * flushes collapse into a single row update.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenUsageRecorder {
+
+    private static final String UPDATE_LAST_USED =
+            "UPDATE refresh_tokens SET last_used_at = ? WHERE id = ? AND (last_used_at IS NULL OR last_used_at < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<UUID, Instant> pending = new ConcurrentHashMap<>();
+
+    public void record(UUID refreshTokenId, Instant usedAt) {
+        pending.merge(refreshTokenId, usedAt, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    @Scheduled(fixedDelayString = "${application.security.jwt.refresh-usage-flush-interval:PT5S}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> batch = new ArrayList<>();
+        Iterator<Map.Entry<UUID, Instant>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, Instant> entry = iterator.next();
+            // remove only the value we read, a newer use recorded meanwhile stays for the next flush
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                Timestamp usedAt = Timestamp.from(entry.getValue());
+                batch.add(new Object[]{usedAt, entry.getKey(), usedAt});
+            }
+        }
+        jdbcTemplate.batchUpdate(UPDATE_LAST_USED, batch);
+        log.debug("Flushed {} refresh token usages", batch.size());
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
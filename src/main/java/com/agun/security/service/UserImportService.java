@@ -0,0 +1,301 @@
+package com.agun.security.service;
+
+import com.agun.security.config.ApplicationConfig;
+import com.agun.security.config.PasswordProperties;
+import com.agun.security.config.UserImportProperties;
+import com.agun.security.constant.Role;
+import com.agun.security.dto.UserImportReport;
+import com.agun.security.dto.UserImportResult;
+import com.agun.security.dto.UserImportRow;
+import com.agun.security.exception.TooManyRequestsException;
+import com.agun.security.model.User;
+import com.agun.security.security.PasswordHashingExecutor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Creates users in bulk from a streamed JSON array or CSV file. Rows are read one at a time
+ * and handled in chunks of {@code batch-size}: one query finds the emails already taken, the
+ * remaining passwords are hashed in parallel on the {@link PasswordHashingExecutor}, and the
+ * chunk is inserted as one JDBC batch in its own transaction. Every row gets a result.
+ */
+@Service
+@Slf4j
+public class UserImportService {
+
+    private static final String EXISTING_EMAILS = "SELECT lower(email) FROM users WHERE lower(email) = ANY (?)";
+
+    // a concurrent registration between the check and the insert turns into an update count of 0
+    private static final String INSERT_USER =
+            "INSERT INTO users (first_name, last_name, email, password, role) VALUES (?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private static final CsvMapper CSV = new CsvMapper();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor hashingExecutor;
+    private final ObjectReader jsonReader;
+    private final ObjectReader csvReader;
+    private final int batchSize;
+    private final Duration retryAfter;
+
+    public UserImportService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            PasswordEncoder passwordEncoder,
+            PasswordHashingExecutor hashingExecutor,
+            ObjectMapper objectMapper,
+            UserImportProperties importProperties,
+            PasswordProperties passwordProperties
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        this.hashingExecutor = hashingExecutor;
+        this.jsonReader = objectMapper.readerFor(UserImportRow.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.csvReader = CSV.readerFor(UserImportRow.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.batchSize = Math.max(1, importProperties.getBatchSize());
+        this.retryAfter = passwordProperties.getRetryAfter();
+    }
+
+    public UserImportReport importJson(InputStream body) throws IOException {
+        try (MappingIterator<UserImportRow> rows = jsonReader.readValues(body)) {
+            return importRows(rows);
+        }
+    }
+
+    public UserImportReport importCsv(InputStream body) throws IOException {
+        try (MappingIterator<UserImportRow> rows = csvReader.readValues(body)) {
+            return importRows(rows);
+        }
+    }
+
+    private UserImportReport importRows(MappingIterator<UserImportRow> rows) {
+        final List<UserImportResult> results = new ArrayList<>();
+        final Set<String> seen = new HashSet<>();
+        final List<Pending> chunk = new ArrayList<>(batchSize);
+        int row = 0;
+
+        while (true) {
+            final UserImportRow next;
+            try {
+                if (!rows.hasNextValue()) {
+                    break;
+                }
+                next = rows.nextValue();
+            } catch (IOException e) {
+                // the stream cannot be resynchronised, keep what was read and report where it stopped
+                results.add(result(row + 1, null, UserImportResult.Status.INVALID, "Unreadable, import stopped: " + e.getMessage()));
+                break;
+            }
+            row++;
+
+            final String email = User.normalizeEmail(next.getEmail());
+            final String problem = validate(next, email);
+            if (problem != null) {
+                results.add(result(row, email, UserImportResult.Status.INVALID, problem));
+            } else if (!seen.add(email)) {
+                results.add(result(row, email, UserImportResult.Status.DUPLICATE, "Repeated in this import"));
+            } else {
+                chunk.add(new Pending(row, email, next));
+                if (chunk.size() == batchSize) {
+                    importChunk(chunk, results);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, results);
+        }
+
+        results.sort((a, b) -> Integer.compare(a.getRow(), b.getRow()));
+        final UserImportReport report = UserImportReport.builder().rows(results).build();
+        for (UserImportResult result : results) {
+            switch (result.getStatus()) {
+                case IMPORTED -> report.setImported(report.getImported() + 1);
+                case DUPLICATE -> report.setDuplicates(report.getDuplicates() + 1);
+                case INVALID -> report.setInvalid(report.getInvalid() + 1);
+            }
+        }
+        log.info("Imported {} users, {} duplicates, {} invalid", report.getImported(), report.getDuplicates(), report.getInvalid());
+        return report;
+    }
+
+    private void importChunk(List<Pending> chunk, List<UserImportResult> results) {
+
+        // one set based lookup instead of an exists query per row
+        final Set<String> taken = existingEmails(chunk);
+        final List<Pending> fresh = new ArrayList<>(chunk.size());
+        for (Pending pending : chunk) {
+            if (taken.contains(pending.email())) {
+                results.add(result(pending.row(), pending.email(), UserImportResult.Status.DUPLICATE, "Email already registered"));
+            } else {
+                fresh.add(pending);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        final List<String> hashes = hashPasswords(fresh);
+        final List<Insert> inserts = new ArrayList<>(fresh.size());
+        for (int i = 0; i < fresh.size(); i++) {
+            final Pending pending = fresh.get(i);
+            if (hashes.get(i) == null) {
+                results.add(result(pending.row(), pending.email(), UserImportResult.Status.INVALID, "Password could not be hashed"));
+            } else {
+                inserts.add(new Insert(pending, hashes.get(i)));
+            }
+        }
+        if (inserts.isEmpty()) {
+            return;
+        }
+        final int[][] counts = transactionTemplate.execute(status ->
+                jdbcTemplate.batchUpdate(INSERT_USER, inserts, batchSize, UserImportService::bind));
+
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                final Pending pending = inserts.get(i++).pending();
+                results.add(count == 0
+                        ? result(pending.row(), pending.email(), UserImportResult.Status.DUPLICATE, "Email already registered")
+                        : result(pending.row(), pending.email(), UserImportResult.Status.IMPORTED, null));
+            }
+        }
+    }
+
+    private Set<String> existingEmails(List<Pending> chunk) {
+        final String[] emails = chunk.stream().map(Pending::email).toArray(String[]::new);
+        return new HashSet<>(jdbcTemplate.query(connection -> {
+            final PreparedStatement statement = connection.prepareStatement(EXISTING_EMAILS);
+            statement.setArray(1, connection.createArrayOf("text", emails));
+            return statement;
+        }, (rs, rowNum) -> rs.getString(1)));
+    }
+
+    // at most one import task per hashing thread is queued, so logins still get their turn in between;
+    // a row whose hashing failed comes back as null rather than failing the import
+    private List<String> hashPasswords(List<Pending> rows) {
+        final Semaphore inFlight = new Semaphore(hashingExecutor.parallelism());
+        final List<CompletableFuture<String>> hashes = new ArrayList<>(rows.size());
+        for (Pending pending : rows) {
+            final UserImportRow row = pending.user();
+            if (StringUtils.hasText(row.getPasswordHash())) {
+                hashes.add(CompletableFuture.completedFuture(row.getPasswordHash()));
+                continue;
+            }
+            inFlight.acquireUninterruptibly();
+            final CompletableFuture<String> hash = submitHashing(row.getPassword());
+            hash.whenComplete((value, failure) -> inFlight.release());
+            hashes.add(hash);
+        }
+        final List<String> results = new ArrayList<>(hashes.size());
+        for (CompletableFuture<String> hash : hashes) {
+            results.add(hash.handle((value, failure) -> {
+                if (failure != null) {
+                    log.warn("Could not hash an imported password", failure);
+                    return null;
+                }
+                return value;
+            }).join());
+        }
+        return results;
+    }
+
+    private CompletableFuture<String> submitHashing(String password) {
+        while (true) {
+            final CompletableFuture<String> hash = hashingExecutor.submit(() -> passwordEncoder.encode(password));
+            if (!(hash.handle((value, failure) -> failure).getNow(null) instanceof TooManyRequestsException)) {
+                return hash;
+            }
+            // the queue is full of logins, they go first
+            try {
+                Thread.sleep(retryAfter.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while importing users", e);
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement statement, Insert insert) throws SQLException {
+        final UserImportRow user = insert.pending().user();
+        statement.setString(1, user.getFirstName());
+        statement.setString(2, user.getLastName());
+        statement.setString(3, insert.pending().email());
+        statement.setString(4, insert.hash());
+        statement.setString(5, role(user.getRole()).name());
+    }
+
+    private static String validate(UserImportRow row, String email) {
+        if (!StringUtils.hasText(email) || email.indexOf('@') < 1 || email.length() > 255) {
+            return "Invalid email";
+        }
+        if (StringUtils.hasText(row.getPasswordHash())) {
+            final String hash = row.getPasswordHash();
+            final int end = hash.indexOf('}');
+            if (!hash.startsWith("{") || end < 2) {
+                return "passwordHash needs its {id} prefix";
+            }
+            // an id no encoder knows would only fail at the user's first login
+            if (!ApplicationConfig.PASSWORD_ENCODING_IDS.contains(hash.substring(1, end)) || end == hash.length() - 1) {
+                return "Unsupported passwordHash " + hash.substring(0, end + 1);
+            }
+        } else if (!StringUtils.hasText(row.getPassword())) {
+            return "Missing password";
+        }
+        if (role(row.getRole()) == null) {
+            return "Unknown role " + row.getRole();
+        }
+        return null;
+    }
+
+    private static Role role(String role) {
+        if (!StringUtils.hasText(role)) {
+            return Role.USER;
+        }
+        try {
+            return Role.valueOf(role.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static UserImportResult result(int row, String email, UserImportResult.Status status, String message) {
+        return UserImportResult.builder().row(row).email(email).status(status).message(message).build();
+    }
+
+    private record Pending(int row, String email, UserImportRow user) {
+    }
+
+    private record Insert(Pending pending, String hash) {
+    }
+}
@@ -0,0 +1,11 @@
+CREATE EXTENSION IF NOT EXISTS "uuid-ossp";
+
+CREATE TABLE IF NOT EXISTS users
+(
+    id         uuid         NOT NULL DEFAULT uuid_generate_v4() PRIMARY KEY,
+    first_name varchar(255),
+    last_name  varchar(255),
+    email      varchar(255),
+    password   varchar(255),
+    role       varchar(255)
+);
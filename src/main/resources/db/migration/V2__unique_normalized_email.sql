@@ -0,0 +1,30 @@
+-- emails are stored trimmed and lower-cased, lookups go through lower(email)
+
+-- accounts whose emails differ only by case or surrounding spaces cannot all keep them under the
+-- unique index: the row already stored in normalized form (else the lowest id) keeps its email,
+-- the others are set aside here with their original email and cannot log in until resolved
+CREATE TABLE IF NOT EXISTS users_duplicate_email
+(
+    user_id uuid         NOT NULL PRIMARY KEY REFERENCES users (id) ON DELETE CASCADE,
+    email   varchar(255) NOT NULL
+);
+
+INSERT INTO users_duplicate_email (user_id, email)
+SELECT id, email
+FROM (SELECT id,
+             email,
+             row_number() OVER (PARTITION BY lower(trim(email))
+                 ORDER BY email = lower(trim(email)) DESC, id) AS position
+      FROM users
+      WHERE email IS NOT NULL) ranked
+WHERE position > 1;
+
+UPDATE users
+SET email = NULL
+WHERE id IN (SELECT user_id FROM users_duplicate_email);
+
+UPDATE users
+SET email = lower(trim(email))
+WHERE email <> lower(trim(email));
+
+CREATE UNIQUE INDEX IF NOT EXISTS users_email_normalized_key ON users (lower(email));
@@ -0,0 +1,13 @@
+CREATE TABLE IF NOT EXISTS refresh_tokens
+(
+    id           uuid                     NOT NULL DEFAULT uuid_generate_v4() PRIMARY KEY,
+    user_id      uuid                     NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    token_hash   varchar(64)              NOT NULL,
+    created_at   timestamp with time zone NOT NULL,
+    expires_at   timestamp with time zone NOT NULL,
+    last_used_at timestamp with time zone
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS refresh_tokens_token_hash_key ON refresh_tokens (token_hash);
+
+CREATE INDEX IF NOT EXISTS refresh_tokens_expires_at_idx ON refresh_tokens (expires_at);
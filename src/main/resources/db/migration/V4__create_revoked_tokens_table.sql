@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS revoked_tokens
+(
+    jti        varchar(64)              NOT NULL PRIMARY KEY,
+    expires_at timestamp with time zone NOT NULL,
+    revoked_at timestamp with time zone NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS revoked_tokens_expires_at_idx ON revoked_tokens (expires_at);
+
+CREATE INDEX IF NOT EXISTS revoked_tokens_revoked_at_idx ON revoked_tokens (revoked_at);
@@ -0,0 +1,8 @@
+-- hashes of refresh tokens that were rotated out; presenting one again revokes its session
+CREATE TABLE IF NOT EXISTS refresh_token_used
+(
+    token_hash       varchar(64) NOT NULL PRIMARY KEY,
+    refresh_token_id uuid        NOT NULL REFERENCES refresh_tokens (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS refresh_token_used_refresh_token_id_idx ON refresh_token_used (refresh_token_id);
@@ -0,0 +1,50 @@
+package com.agun.security.benchmark;
+
+import com.agun.security.config.JwtProperties;
+import com.agun.security.constant.Role;
+import com.agun.security.model.User;
+import com.agun.security.security.AuthMetrics;
+import com.agun.security.security.JwtKeyRing;
+import com.agun.security.security.TokenManager;
+import com.agun.security.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.UUID;
+
+/**
+ * Shared setup for the JMH benchmarks, the same key and user the unit tests use.
+ */
+final class BenchmarkFixtures {
+
+    static final String SECRET = "NSIq5owaB28TAkUVqZmCovjTNd8E8RFOC6GJqeubOVAr7ReP0N7yTuQn8F9a9sqG";
+
+    private BenchmarkFixtures() {
+    }
+
+    static JwtProperties jwtProperties() {
+        JwtProperties properties = new JwtProperties();
+        properties.setActiveKeyId("k1");
+        properties.getKeys().put("k1", SECRET);
+        return properties;
+    }
+
+    static TokenManager tokenManager(JwtProperties properties) {
+        return new TokenManager(new JwtKeyRing(properties), properties, new VerifiedTokenCache(properties), metrics());
+    }
+
+    // a registry with real meters, so the recording cost is part of the measurement
+    static AuthMetrics metrics() {
+        return new AuthMetrics(new SimpleMeterRegistry());
+    }
+
+    static User user() {
+        return User.builder()
+                .id(UUID.randomUUID())
+                .firstName("John")
+                .lastName("Doe")
+                .email("test@example.com")
+                .password("hashedPassword")
+                .role(Role.USER)
+                .build();
+    }
+}
@@ -0,0 +1,48 @@
+package com.agun.security.benchmark;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the CDS archive for the jar in {@code target/cds}: one start of the application against
+ * an embedded Postgres with {@code -XX:ArchiveClassesAtExit}, leaving as soon as the context is
+ * refreshed. The archive holds every class loaded up to then and is only valid for this jar,
+ * its lib directory and this JDK. Run by {@code mvn -Pcds -DskipTests verify}.
+ */
+public class CdsArchiveTraining {
+
+    public static void main(String[] args) throws Exception {
+        final Path jar = StartupBenchmark.cdsJar();
+        if (jar == null) {
+            throw new IllegalStateException("No jar in " + StartupBenchmark.CDS_DIRECTORY);
+        }
+        Files.deleteIfExists(StartupBenchmark.CDS_ARCHIVE);
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            final String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            // same relative jar path as at run time, the archive records the class path as given
+            final Process process = StartupBenchmark.start(List.of(java,
+                    "-XX:ArchiveClassesAtExit=" + StartupBenchmark.CDS_ARCHIVE,
+                    // one warning per class that cannot be archived otherwise
+                    "-Xlog:cds=error",
+                    "-Dspring.context.exit=onRefresh",
+                    "-jar", jar.toString()), postgres, 0);
+            process.getInputStream().transferTo(System.out);
+            if (!process.waitFor(5, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+                throw new IllegalStateException("Training run did not exit");
+            }
+            if (!Files.exists(StartupBenchmark.CDS_ARCHIVE)) {
+                throw new IllegalStateException("No CDS archive written, exit code " + process.exitValue());
+            }
+        }
+        System.out.printf("Wrote %s (%d KB), run with java -XX:SharedArchiveFile=%s -jar %s%n",
+                StartupBenchmark.CDS_ARCHIVE, Files.size(StartupBenchmark.CDS_ARCHIVE) / 1024,
+                StartupBenchmark.CDS_ARCHIVE, jar);
+    }
+}
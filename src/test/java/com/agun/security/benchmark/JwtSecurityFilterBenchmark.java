@@ -0,0 +1,61 @@
+package com.agun.security.benchmark;
+
+import com.agun.security.config.JwtProperties;
+import com.agun.security.model.User;
+import com.agun.security.security.JwtSecurityFilter;
+import com.agun.security.security.TokenManager;
+import com.agun.security.security.TokenRevocationService;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One authenticated request through {@link JwtSecurityFilter} with an in-memory
+ * {@link UserDetailsService}, so the numbers cover token, revocation and principal work
+ * without the database. The mock request and response are part of each operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtSecurityFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    private JwtSecurityFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtProperties properties = BenchmarkFixtures.jwtProperties();
+        TokenManager tokenManager = BenchmarkFixtures.tokenManager(properties);
+        User user = BenchmarkFixtures.user();
+        UserDetailsService userDetailsService = username -> user;
+        // the not-revoked check is answered by the in-memory filter, the template is never used
+        TokenRevocationService revocationService = new TokenRevocationService(new JdbcTemplate(), properties);
+        filter = new JwtSecurityFilter(tokenManager, userDetailsService, revocationService, BenchmarkFixtures.metrics());
+        authorization = "Bearer " + tokenManager.generateToken(user);
+    }
+
+    @Benchmark
+    public Object doFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+        request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), NO_OP_CHAIN);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.agun.security.benchmark;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Closed-loop HTTP load generator: a fixed number of clients pick a weighted scenario, send
+ * it and record the latency, back to back for a fixed duration. Runs on platform threads so
+ * the client side is the same whichever thread mode the server uses. Latency percentiles and
+ * throughput count successful responses only; a fast 429 or 401 would otherwise flatter both,
+ * so failures are counted and timed apart.
+ */
+public class LoadDriver {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    public Result run(String name, int clients, Duration duration, Supplier<HttpRequest> requests) throws InterruptedException {
+        return run(clients, duration, List.of(new Scenario(name, 1, requests))).get(0);
+    }
+
+    public List<Result> run(int clients, Duration duration, List<Scenario> mix) throws InterruptedException {
+        final List<Tally> tallies = mix.stream().map(Tally::new).toList();
+        final int totalWeight = mix.stream().mapToInt(Scenario::weight).sum();
+        final long deadline = System.nanoTime() + duration.toNanos();
+        final CountDownLatch done = new CountDownLatch(clients);
+        final ExecutorService executor = Executors.newFixedThreadPool(clients);
+        for (int i = 0; i < clients; i++) {
+            executor.execute(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        send(pick(tallies, totalWeight));
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        executor.shutdown();
+
+        final List<Result> results = new ArrayList<>(tallies.size());
+        for (Tally tally : tallies) {
+            results.add(Result.of(tally.scenario.name(), tally.successes.getIntervalHistogram(),
+                    tally.failures.getIntervalHistogram(), duration));
+        }
+        return results;
+    }
+
+    private void send(Tally tally) {
+        final long start = System.nanoTime();
+        boolean success = false;
+        try {
+            HttpResponse<Void> response = client.send(tally.scenario.request().get(), HttpResponse.BodyHandlers.discarding());
+            success = response.statusCode() < 400;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // counted as a failure below
+        }
+        final long latency = Math.min(System.nanoTime() - start, MAX_LATENCY_NANOS);
+        (success ? tally.successes : tally.failures).recordValue(latency);
+    }
+
+    private static Tally pick(List<Tally> tallies, int totalWeight) {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Tally tally : tallies) {
+            roll -= tally.scenario.weight();
+            if (roll < 0) {
+                return tally;
+            }
+        }
+        return tallies.get(tallies.size() - 1);
+    }
+
+    public record Scenario(String name, int weight, Supplier<HttpRequest> request) {
+    }
+
+    private static final class Tally {
+
+        private final Scenario scenario;
+
+        private final Recorder successes = new Recorder(MAX_LATENCY_NANOS, 3);
+
+        private final Recorder failures = new Recorder(MAX_LATENCY_NANOS, 3);
+
+        private Tally(Scenario scenario) {
+            this.scenario = scenario;
+        }
+    }
+
+    public record Result(String name, long requests, long errors, double throughput,
+                         double p50Millis, double p99Millis, double p999Millis, double maxMillis,
+                         double errorP50Millis) {
+
+        static Result of(String name, Histogram successes, Histogram failures, Duration duration) {
+            return new Result(
+                    name,
+                    successes.getTotalCount(),
+                    failures.getTotalCount(),
+                    successes.getTotalCount() / (duration.toMillis() / 1000.0),
+                    successes.getValueAtPercentile(50) / 1e6,
+                    successes.getValueAtPercentile(99) / 1e6,
+                    successes.getValueAtPercentile(99.9) / 1e6,
+                    successes.getMaxValue() / 1e6,
+                    failures.getValueAtPercentile(50) / 1e6);
+        }
+
+        @Override
+        public String toString() {
+            final String line = String.format("%-28s %8d ok %6d err %9.1f ok/s  p50 %7.2f ms  p99 %7.2f ms  p999 %7.2f ms  max %7.2f ms",
+                    name, requests, errors, throughput, p50Millis, p99Millis, p999Millis, maxMillis);
+            return errors == 0 ? line : line + String.format("  err p50 %7.2f ms", errorP50Millis);
+        }
+    }
+}
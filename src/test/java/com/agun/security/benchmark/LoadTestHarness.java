@@ -0,0 +1,168 @@
+package com.agun.security.benchmark;
+
+import com.agun.security.SecurityApplication;
+import com.agun.security.dto.AuthenticationResponse;
+import com.agun.security.dto.DefaultResponse;
+import com.agun.security.dto.RegisterRequest;
+import com.agun.security.service.AuthService;
+import com.agun.security.service.ReactiveAuthService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * End-to-end load test on one box: starts an embedded Postgres (binaries come from the
+ * Maven repository, no Docker or network needed once resolved), boots the full application
+ * against it, seeds users through {@link AuthService#register} and drives a weighted mix of
+ * logins, registrations and authenticated reads. Prints throughput and p50/p99/p999 per endpoint.
+ *
+ * <pre>
+ * mvn -Pload-test -DskipTests verify -Dload.users=500 -Dload.clients=64 -Dload.duration=PT60S \
+ *     -Dload.mix=login:20,register:5,users:75 [-Dload.args=--application.security.password.strength=10]
+ * </pre>
+ */
+public class LoadTestHarness {
+
+    private static final String PASSWORD = "password";
+
+    public static void main(String[] args) throws Exception {
+        final int users = Integer.getInteger("load.users", 200);
+        final int clients = Integer.getInteger("load.clients", 32);
+        final Duration warmup = Duration.parse(System.getProperty("load.warmup", "PT10S"));
+        final Duration duration = Duration.parse(System.getProperty("load.duration", "PT30S"));
+        final Map<String, Integer> mix = parseMix(System.getProperty("load.mix", "login:20,register:5,users:75"));
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             ConfigurableApplicationContext context = new SpringApplicationBuilder(SecurityApplication.class)
+                     .run(applicationArgs(postgres, args))) {
+
+            final String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            final List<SeededUser> seeded = seed(registration(context), users);
+            System.out.printf("Seeded %d users%n", seeded.size());
+
+            final List<LoadDriver.Scenario> scenarios = scenarios(baseUrl, seeded, mix);
+            final LoadDriver driver = new LoadDriver();
+            driver.run(clients, warmup, scenarios);
+            System.out.printf("%d clients for %s, mix %s%n", clients, duration, mix);
+            driver.run(clients, duration, scenarios).forEach(System.out::println);
+        }
+    }
+
+    // command line arguments, so they win over application.yml
+    private static String[] applicationArgs(EmbeddedPostgres postgres, String[] args) {
+        final List<String> applicationArgs = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--spring.r2dbc.url=r2dbc:postgresql://localhost:" + postgres.getPort() + "/postgres",
+                "--spring.r2dbc.username=postgres",
+                "--spring.r2dbc.password=postgres",
+                "--spring.jpa.show-sql=false",
+                // every simulated client calls from the same loopback address
+                "--application.security.rate-limit.enabled=false"));
+        // -Dload.args arrives as one argument through the Maven profile
+        for (String arg : args) {
+            for (String part : arg.trim().split("\\s+")) {
+                if (!part.isEmpty()) {
+                    applicationArgs.add(part);
+                }
+            }
+        }
+        return applicationArgs.toArray(String[]::new);
+    }
+
+    // AuthService on the servlet stack, its reactive twin with spring.main.web-application-type=reactive
+    private static Function<RegisterRequest, DefaultResponse<AuthenticationResponse>> registration(ApplicationContext context) {
+        final ObjectProvider<AuthService> authService = context.getBeanProvider(AuthService.class);
+        if (authService.getIfAvailable() != null) {
+            return authService.getObject()::register;
+        }
+        final ReactiveAuthService reactiveAuthService = context.getBean(ReactiveAuthService.class);
+        return request -> reactiveAuthService.register(request).block();
+    }
+
+    private static List<SeededUser> seed(Function<RegisterRequest, DefaultResponse<AuthenticationResponse>> register,
+                                         int users) throws Exception {
+        // stay within the hashing queue, registering faster than the pool only earns 429s
+        final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            final List<Future<SeededUser>> futures = new ArrayList<>(users);
+            for (int i = 0; i < users; i++) {
+                final String email = "load-" + i + "-" + UUID.randomUUID() + "@example.com";
+                futures.add(executor.submit(() -> {
+                    String token = register.apply(new RegisterRequest("Load", "Test", email, PASSWORD))
+                            .getData().get(0).getToken();
+                    return new SeededUser(email, token);
+                }));
+            }
+            final List<SeededUser> seeded = new ArrayList<>(users);
+            for (Future<SeededUser> future : futures) {
+                seeded.add(future.get());
+            }
+            return seeded;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static List<LoadDriver.Scenario> scenarios(String baseUrl, List<SeededUser> seeded, Map<String, Integer> mix) {
+        final List<LoadDriver.Scenario> scenarios = new ArrayList<>();
+        mix.forEach((name, weight) -> scenarios.add(switch (name) {
+            case "login" -> new LoadDriver.Scenario("POST /api/auth/login", weight, () -> {
+                SeededUser user = seeded.get(ThreadLocalRandom.current().nextInt(seeded.size()));
+                return json(baseUrl + "/api/auth/login",
+                        "{\"email\":\"" + user.email() + "\",\"password\":\"" + PASSWORD + "\"}");
+            });
+            case "register" -> new LoadDriver.Scenario("POST /api/auth/register", weight, () -> json(
+                    baseUrl + "/api/auth/register",
+                    "{\"firstName\":\"Load\",\"lastName\":\"Test\",\"email\":\"load-" + UUID.randomUUID()
+                            + "@example.com\",\"password\":\"" + PASSWORD + "\"}"));
+            case "users" -> new LoadDriver.Scenario("GET /api/users", weight, () -> {
+                SeededUser user = seeded.get(ThreadLocalRandom.current().nextInt(seeded.size()));
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/users"))
+                        .header("Authorization", "Bearer " + user.token())
+                        .GET()
+                        .build();
+            });
+            default -> throw new IllegalArgumentException("Unknown scenario " + name);
+        }));
+        return scenarios;
+    }
+
+    private static HttpRequest json(String url, String body) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        final Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            weights.put(parts[0], Integer.parseInt(parts[1]));
+        }
+        return weights;
+    }
+
+    private record SeededUser(String email, String token) {
+    }
+}
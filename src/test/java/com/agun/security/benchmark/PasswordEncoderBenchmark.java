@@ -0,0 +1,41 @@
+package com.agun.security.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt encode and verify per cost factor. Each step doubles the work, the numbers show
+ * what one more step costs in hashing pool throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    @Param({"8", "10", "12"})
+    private int strength;
+
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(strength);
+        hash = encoder.encode("plainPassword");
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.encode("plainPassword");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches("plainPassword", hash);
+    }
+}
@@ -0,0 +1,56 @@
+package com.agun.security.benchmark;
+
+import com.agun.security.config.RateLimitProperties;
+import com.agun.security.security.AuthRateLimiter;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per request cost of {@link AuthRateLimiter} with several threads hitting a shared table:
+ * the address check alone, and the address plus body email check a login goes through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RateLimiterBenchmark {
+
+    private static final int KEYS = 10_000;
+
+    private AuthRateLimiter rateLimiter;
+    private String[] addresses;
+    private byte[][] bodies;
+
+    @Setup
+    public void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        // limits high enough that every call goes through the allowing CAS
+        properties.setPerIp(new RateLimitProperties.Limit(1_000_000_000, Duration.ofSeconds(1)));
+        properties.setPerEmail(new RateLimitProperties.Limit(1_000_000_000, Duration.ofSeconds(1)));
+        rateLimiter = new AuthRateLimiter(properties, BenchmarkFixtures.metrics());
+        addresses = new String[KEYS];
+        bodies = new byte[KEYS][];
+        for (int i = 0; i < KEYS; i++) {
+            addresses[i] = "10.0." + (i >> 8) + "." + (i & 0xff);
+            bodies[i] = ("{\"email\":\"user" + i + "@example.com\",\"password\":\"password\"}").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public long address() {
+        return rateLimiter.acquireAddress(addresses[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    @Benchmark
+    public long addressAndEmail() {
+        int i = ThreadLocalRandom.current().nextInt(KEYS);
+        return rateLimiter.acquireAddress(addresses[i]) + rateLimiter.acquireEmail(bodies[i]);
+    }
+}
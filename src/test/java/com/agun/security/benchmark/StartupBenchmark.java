@@ -0,0 +1,208 @@
+package com.agun.security.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Cold start comparison of the build outputs: the plain JVM jar, the same jar with the CDS
+ * archive, the AOT processed jar on the JVM and the native image. Each run is a fresh process
+ * against an embedded Postgres. Ready is the time from process start to Boot's "Started" line,
+ * then the first register and the first authenticated read are timed, before anything has
+ * warmed up. Modes whose build output is missing are skipped.
+ *
+ * <pre>
+ * mvn -Pcds,startup -DskipTests verify [-Dstartup.runs=5]
+ * mvn -Pnative,cds,startup -DskipTests verify   # adds the aot mode, and native with GraalVM
+ * mvn -Pnative,cds,startup -DskipTests -DskipNativeBuild=true verify   # aot without GraalVM
+ * </pre>
+ */
+public class StartupBenchmark {
+
+    static final Path CDS_DIRECTORY = Paths.get("target", "cds");
+    static final Path CDS_ARCHIVE = CDS_DIRECTORY.resolve("application.jsa");
+    static final Path NATIVE_IMAGE = Paths.get("target", "security");
+
+    private static final String AOT_INITIALIZER = "com/agun/security/SecurityApplication__ApplicationContextInitializer.class";
+    private static final String STARTED = "Started SecurityApplication in";
+
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        final int runs = Integer.getInteger("startup.runs", 5);
+        final List<Mode> modes = modes();
+        if (modes.isEmpty()) {
+            throw new IllegalStateException("Nothing to start, build with -Pcds and/or -Pnative first");
+        }
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            // the first start migrates the schema, keep it out of the numbers
+            measure(modes.get(0), postgres);
+            final List<String> summary = new ArrayList<>();
+            for (Mode mode : modes) {
+                final long[][] samples = new long[3][runs];
+                for (int i = 0; i < runs; i++) {
+                    final long[] sample = measure(mode, postgres);
+                    for (int metric = 0; metric < sample.length; metric++) {
+                        samples[metric][i] = sample[metric];
+                    }
+                    System.out.printf("%-6s run %d: ready %d ms, first register %d ms, first read %d ms%n",
+                            mode.name(), i + 1, sample[0], sample[1], sample[2]);
+                }
+                summary.add(String.format("%-6s ready %6d ms   first register %5d ms   first read %5d ms",
+                        mode.name(), median(samples[0]), median(samples[1]), median(samples[2])));
+            }
+            System.out.printf("Median of %d runs%n", runs);
+            summary.forEach(System.out::println);
+        }
+    }
+
+    private static List<Mode> modes() throws IOException {
+        final List<Mode> modes = new ArrayList<>();
+        final String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        final Path jar = cdsJar();
+        if (jar != null) {
+            modes.add(new Mode("jvm", List.of(java, "-jar", jar.toString())));
+            if (Files.exists(CDS_ARCHIVE)) {
+                modes.add(new Mode("cds", List.of(java, "-XX:SharedArchiveFile=" + CDS_ARCHIVE, "-jar", jar.toString())));
+            }
+            try (JarFile jarFile = new JarFile(jar.toFile())) {
+                if (jarFile.getEntry(AOT_INITIALIZER) != null) {
+                    modes.add(new Mode("aot", List.of(java, "-Dspring.aot.enabled=true", "-jar", jar.toString())));
+                }
+            }
+        }
+        if (Files.isExecutable(NATIVE_IMAGE)) {
+            modes.add(new Mode("native", List.of(NATIVE_IMAGE.toString())));
+        }
+        return modes;
+    }
+
+    // the thin jar next to its lib directory, CDS only archives classes loaded from jar files
+    static Path cdsJar() throws IOException {
+        if (!Files.isDirectory(CDS_DIRECTORY)) {
+            return null;
+        }
+        try (Stream<Path> files = Files.list(CDS_DIRECTORY)) {
+            return files.filter(file -> file.getFileName().toString().endsWith("-cds.jar")).findFirst().orElse(null);
+        }
+    }
+
+    // ready, first register and first authenticated read, in milliseconds
+    private static long[] measure(Mode mode, EmbeddedPostgres postgres) throws Exception {
+        final int port = freePort();
+        final long start = System.nanoTime();
+        final Process process = start(mode.command(), postgres, port);
+        try {
+            final CompletableFuture<Void> started = watchOutput(process, mode.name());
+            started.get(2, TimeUnit.MINUTES);
+            final long ready = System.nanoTime();
+
+            final String baseUrl = "http://localhost:" + port;
+            final HttpResponse<String> registered = CLIENT.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/register"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"firstName\":\"Startup\",\"lastName\":\"Test\",\"email\":\"startup-"
+                            + UUID.randomUUID() + "@example.com\",\"password\":\"password\"}"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            final long afterRegister = System.nanoTime();
+            final String token = MAPPER.readTree(registered.body()).path("data").path(0).path("token").asText();
+
+            final HttpResponse<String> read = CLIENT.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/users"))
+                    .header("Authorization", "Bearer " + token)
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            final long afterRead = System.nanoTime();
+            if (registered.statusCode() / 100 != 2 || read.statusCode() != 200) {
+                throw new IllegalStateException(mode.name() + ": register " + registered.statusCode() + ", read " + read.statusCode());
+            }
+            return new long[]{
+                    TimeUnit.NANOSECONDS.toMillis(ready - start),
+                    TimeUnit.NANOSECONDS.toMillis(afterRegister - ready),
+                    TimeUnit.NANOSECONDS.toMillis(afterRead - afterRegister)
+            };
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    static Process start(List<String> command, EmbeddedPostgres postgres, int port) throws IOException {
+        final List<String> full = new ArrayList<>(command);
+        // command line arguments, so they win over application.yml
+        full.addAll(Arrays.asList(
+                "--server.port=" + port,
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--spring.r2dbc.url=r2dbc:postgresql://localhost:" + postgres.getPort() + "/postgres",
+                "--spring.r2dbc.username=postgres",
+                "--spring.r2dbc.password=postgres",
+                "--spring.jpa.show-sql=false",
+                "--application.security.rate-limit.enabled=false"));
+        return new ProcessBuilder(full).redirectErrorStream(true).start();
+    }
+
+    // completes on the "Started" line; the whole output goes to target/startup/<mode>.log
+    private static CompletableFuture<Void> watchOutput(Process process, String name) throws IOException {
+        final CompletableFuture<Void> started = new CompletableFuture<>();
+        final Path log = Paths.get("target", "startup", name + ".log");
+        Files.createDirectories(log.getParent());
+        final Thread reader = new Thread(() -> {
+            try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+                 PrintWriter writer = new PrintWriter(Files.newBufferedWriter(log, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = output.readLine()) != null) {
+                    writer.println(line);
+                    if (line.contains(STARTED)) {
+                        started.complete(null);
+                    }
+                }
+                started.completeExceptionally(new IllegalStateException(name + " exited before starting, see " + log));
+            } catch (IOException e) {
+                started.completeExceptionally(e);
+            }
+        }, "startup-" + name);
+        reader.setDaemon(true);
+        reader.start();
+        return started;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(long[] samples) {
+        final long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private record Mode(String name, List<String> command) {
+    }
+}
@@ -0,0 +1,87 @@
+package com.agun.security.benchmark;
+
+import com.agun.security.SecurityApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Boots the application once on platform threads and once on virtual threads and drives the
+ * same login and authenticated-read mix against each. Needs the database from
+ * docker-compose and JDK 21 for the virtual run (skipped on older runtimes).
+ *
+ * <pre>
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *     -Dclients=200 -Dduration=PT30S com.agun.security.benchmark.ThreadModelBenchmark
+ * </pre>
+ */
+public class ThreadModelBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        int clients = Integer.getInteger("clients", 200);
+        Duration duration = Duration.parse(System.getProperty("duration", "PT30S"));
+
+        List<LoadDriver.Result> results = new ArrayList<>(run(false, clients, duration));
+        if (Runtime.version().feature() >= 21) {
+            results.addAll(run(true, clients, duration));
+        } else {
+            System.out.println("Java " + Runtime.version().feature() + ", skipping the virtual thread run");
+        }
+        results.forEach(System.out::println);
+    }
+
+    private static List<LoadDriver.Result> run(boolean virtual, int clients, Duration duration) throws Exception {
+        String mode = virtual ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SecurityApplication.class)
+                .run("--server.port=0", "--spring.threads.virtual.enabled=" + virtual,
+                        "--application.security.rate-limit.enabled=false")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String baseUrl = "http://localhost:" + port;
+            String email = "bench-" + UUID.randomUUID() + "@example.com";
+            String password = "password";
+            String token = register(baseUrl, email, password);
+
+            LoadDriver driver = new LoadDriver();
+            String credentials = "{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}";
+            LoadDriver.Result logins = driver.run(mode + " login", clients, duration, () -> HttpRequest
+                    .newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(credentials))
+                    .build());
+            LoadDriver.Result reads = driver.run(mode + " authenticated read", clients, duration, () -> HttpRequest
+                    .newBuilder(URI.create(baseUrl + "/api/users"))
+                    .header("Authorization", "Bearer " + token)
+                    .GET()
+                    .build());
+            return List.of(logins, reads);
+        }
+    }
+
+    private static String register(String baseUrl, String email, String password) throws Exception {
+        String body = "{\"firstName\":\"Bench\",\"lastName\":\"Mark\",\"email\":\"" + email
+                + "\",\"password\":\"" + password + "\"}";
+        HttpResponse<String> response = HttpClient.newHttpClient().send(HttpRequest
+                        .newBuilder(URI.create(baseUrl + "/api/auth/register"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        String token = MAPPER.readTree(response.body()).path("data").path(0).path("token").asText(null);
+        if (token == null) {
+            throw new IllegalStateException("Registration failed: " + response.statusCode() + " " + response.body());
+        }
+        return token;
+    }
+}
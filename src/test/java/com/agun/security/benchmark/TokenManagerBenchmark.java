@@ -0,0 +1,45 @@
+package com.agun.security.benchmark;
+
+import com.agun.security.model.User;
+import com.agun.security.security.TokenManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and the string based read paths of {@link TokenManager}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenManagerBenchmark {
+
+    private TokenManager tokenManager;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenManager = BenchmarkFixtures.tokenManager(BenchmarkFixtures.jwtProperties());
+        user = BenchmarkFixtures.user();
+        token = tokenManager.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return tokenManager.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return tokenManager.extractUsername(token);
+    }
+
+    @Benchmark
+    public Boolean isTokenValid() {
+        return tokenManager.isTokenValid(token, user);
+    }
+}
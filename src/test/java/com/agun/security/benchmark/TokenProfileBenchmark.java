@@ -0,0 +1,54 @@
+package com.agun.security.benchmark;
+
+import com.agun.security.config.JwtProperties;
+import com.agun.security.model.User;
+import com.agun.security.security.TokenManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The standard token against the compact profile: size of the bearer value, printed at
+ * setup, and the cost of checking a valid and a tampered one. {@code standard} is the
+ * email-only token, {@code stateless} carries the same user id, role and permissions as
+ * {@code compact}. The verification cache stays off so every call verifies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenProfileBenchmark {
+
+    @Param({"standard", "stateless", "compact"})
+    private String profile;
+
+    private TokenManager tokenManager;
+    private String token;
+    private String tampered;
+
+    @Setup
+    public void setUp() {
+        JwtProperties properties = BenchmarkFixtures.jwtProperties();
+        properties.setStateless(!"standard".equals(profile));
+        properties.setCompact("compact".equals(profile));
+        tokenManager = BenchmarkFixtures.tokenManager(properties);
+        User user = BenchmarkFixtures.user();
+        token = tokenManager.generateToken(user);
+        char last = token.charAt(token.length() - 2);
+        tampered = token.substring(0, token.length() - 2) + (last == 'A' ? 'B' : 'A') + token.charAt(token.length() - 1);
+        System.out.printf("%n%s token: %d characters, Authorization header %d bytes%n",
+                profile, token.length(), "Bearer ".length() + token.length());
+    }
+
+    @Benchmark
+    public Object checkValid() {
+        return tokenManager.check(token);
+    }
+
+    @Benchmark
+    public Object checkTampered() {
+        return tokenManager.check(tampered);
+    }
+}
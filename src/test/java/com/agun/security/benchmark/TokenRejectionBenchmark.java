@@ -0,0 +1,58 @@
+package com.agun.security.benchmark;
+
+import com.agun.security.model.User;
+import com.agun.security.security.TokenManager;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a bad bearer token away: the throwing verify path against the
+ * pre-checked, result returning {@link TokenManager#check}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenRejectionBenchmark {
+
+    @Param({"garbage", "unknownKey", "expired", "tampered"})
+    private String kind;
+
+    private TokenManager tokenManager;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenManager = BenchmarkFixtures.tokenManager(BenchmarkFixtures.jwtProperties());
+        User user = BenchmarkFixtures.user();
+        String valid = tokenManager.generateToken(user);
+        token = switch (kind) {
+            case "garbage" -> "c2NyaXB0LWtpZGRpZS1ndWVzcw.bm90LWEtdG9rZW4.c2lnbmF0dXJl";
+            case "unknownKey" -> Jwts.builder().header().keyId("other").and().subject(user.getEmail())
+                    .signWith(Jwts.SIG.HS256.key().build()).compact();
+            case "expired" -> tokenManager.generateToken(Map.of(), user, -60_000L);
+            case "tampered" -> valid.substring(0, valid.length() - 4) + "AAAA";
+            default -> throw new IllegalArgumentException(kind);
+        };
+    }
+
+    @Benchmark
+    public Object verifyAndCatch() {
+        try {
+            return tokenManager.verify(token);
+        } catch (JwtException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object check() {
+        return tokenManager.check(token);
+    }
+}
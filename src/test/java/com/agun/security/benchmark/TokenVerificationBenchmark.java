@@ -0,0 +1,56 @@
+package com.agun.security.benchmark;
+
+import com.agun.security.model.User;
+import com.agun.security.security.TokenManager;
+import com.agun.security.security.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the filter's former token path (extractUsername followed by
+ * isTokenValid, three signature checks) with a single verify call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenVerificationBenchmark {
+
+    private TokenManager tokenManager;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenManager = BenchmarkFixtures.tokenManager(BenchmarkFixtures.jwtProperties());
+        user = BenchmarkFixtures.user();
+        token = tokenManager.generateToken(user);
+    }
+
+    @Benchmark
+    public void extractThenValidate(Blackhole blackhole) {
+        String username = tokenManager.extractUsername(token);
+        blackhole.consume(username);
+        blackhole.consume(tokenManager.isTokenValid(token, user));
+    }
+
+    @Benchmark
+    public void verifyOnce(Blackhole blackhole) {
+        VerifiedToken verified = tokenManager.verify(token);
+        blackhole.consume(verified.subject());
+        blackhole.consume(tokenManager.isTokenValid(verified, user));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TokenVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,42 @@
+package com.agun.security.benchmark;
+
+import com.agun.security.constant.Permission;
+import com.agun.security.model.User;
+import com.agun.security.security.PermissionAuthorizationManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserAuthoritiesBenchmark {
+
+    private User user;
+
+    private Authentication authentication;
+
+    private final PermissionAuthorizationManager<Object> accountRead =
+            PermissionAuthorizationManager.requires(Permission.ACCOUNT_READ);
+
+    @Setup
+    public void setUp() {
+        user = BenchmarkFixtures.user();
+        authentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+
+    @Benchmark
+    public Object getAuthorities() {
+        return user.getAuthorities();
+    }
+
+    @Benchmark
+    public boolean checkPermission() {
+        return accountRead.check(() -> authentication, null).isGranted();
+    }
+}
@@ -0,0 +1,49 @@
+package com.agun.security.config;
+
+import com.agun.security.dto.UserImportRow;
+import com.agun.security.model.User;
+import com.agun.security.security.UserCredentials;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeHint;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+class NativeRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @Test
+    void itShouldRegisterTheReflectionTheApplicationNeeds() throws Exception {
+        // Given
+        // When
+        new NativeRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        // Then
+        assertThat(RuntimeHintsPredicates.reflection().onType(TypeReference.of("io.jsonwebtoken.impl.DefaultJwtParserBuilder"))
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(UserImportRow.class.getMethod("setEmail", String.class)))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(User.class)
+                .withMemberCategory(MemberCategory.DECLARED_FIELDS)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(UserCredentials.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(hints);
+    }
+
+    @Test
+    void itShouldOnlyNameClassesThatExist() {
+        // Given
+        new NativeRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        // When
+        // Then a renamed class after a jjwt upgrade fails here rather than in the native image
+        hints.reflection().typeHints().map(TypeHint::getType).forEach(type ->
+                assertThatCode(() -> Class.forName(type.getName(), false, getClass().getClassLoader()))
+                        .as(type.getName())
+                        .doesNotThrowAnyException());
+    }
+}
@@ -0,0 +1,134 @@
+package com.agun.security.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+
+    private ReplicaRoutingDataSource underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ReplicaRoutingDataSource(primary, List.of(replica));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void itShouldSendReadOnlyTransactionsToTheReplica() throws SQLException {
+        // Given
+        given(primary.getConnection()).willReturn(primaryConnection);
+        given(replica.getConnection()).willReturn(replicaConnection);
+
+        // When
+        // Then outside a transaction and in read-write ones the primary answers
+        assertThat(underTest.getConnection()).isSameAs(primaryConnection);
+        inTransaction(true);
+        assertThat(underTest.getConnection()).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void itShouldReadFromThePrimaryAfterAWriteUntilTheRequestEnds() throws SQLException {
+        // Given a read-write transaction earlier in the request
+        given(primary.getConnection()).willReturn(primaryConnection);
+        given(replica.getConnection()).willReturn(replicaConnection);
+        startRequest();
+        inTransaction(false);
+        underTest.getConnection();
+
+        // When
+        inTransaction(true);
+        Connection afterWrite = underTest.getConnection();
+        startRequest();
+        Connection nextRequest = underTest.getConnection();
+
+        // Then
+        assertThat(afterWrite).isSameAs(primaryConnection);
+        assertThat(nextRequest).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void itShouldNotPinAThreadOutsideARequestToThePrimary() throws SQLException {
+        // Given a scheduled job or hashing pool thread that wrote
+        given(primary.getConnection()).willReturn(primaryConnection);
+        given(replica.getConnection()).willReturn(replicaConnection);
+        inTransaction(false);
+        underTest.getConnection();
+
+        // When
+        inTransaction(true);
+        Connection laterRead = underTest.getConnection();
+
+        // Then
+        assertThat(laterRead).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void itShouldFailOverToThePrimaryUntilTheReplicaChecksHealthy() throws SQLException {
+        // Given
+        given(primary.getConnection()).willReturn(primaryConnection);
+        willThrow(new SQLException("connection refused")).given(replica).getConnection();
+        inTransaction(true);
+
+        // When
+        Connection failedOver = underTest.getConnection();
+        Connection whileDown = underTest.getConnection();
+
+        // Then the refusing replica is asked once, then skipped
+        assertThat(failedOver).isSameAs(primaryConnection);
+        assertThat(whileDown).isSameAs(primaryConnection);
+        verify(replica, times(1)).getConnection();
+
+        // ... and takes reads again after a good health check
+        reset(replica);
+        given(replica.getConnection()).willReturn(replicaConnection);
+        given(replicaConnection.isValid(1)).willReturn(true);
+        underTest.checkReplicas();
+        assertThat(underTest.getConnection()).isSameAs(replicaConnection);
+    }
+
+    private static void startRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    private static void inTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+}
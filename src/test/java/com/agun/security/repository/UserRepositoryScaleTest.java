@@ -0,0 +1,79 @@
+package com.agun.security.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Seeds the users table up to -Dscale.rows (e.g. 2000000) and checks that findByEmail stays
+ * an index lookup whose latency does not grow with the table. Run against the docker-compose
+ * database with: ./mvnw test -Dtest=UserRepositoryScaleTest -Dscale.rows=2000000
+ */
+@DataJpaTest(properties = "spring.jpa.properties.jakarta.persistence.validation.mode=none")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfSystemProperty(named = "scale.rows", matches = "\\d+")
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+@Slf4j
+class UserRepositoryScaleTest {
+
+    private static final int SMALL_TABLE_ROWS = 10_000;
+    private static final int LOOKUPS = 2_000;
+
+    private final UserRepository underTest;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void itShouldKeepLookupTimeFlatAsTableGrows() {
+        // Given a small table
+        final int rows = Integer.parseInt(System.getProperty("scale.rows"));
+        seed(1, SMALL_TABLE_ROWS);
+        final double small = averageLookupMicros(SMALL_TABLE_ROWS);
+
+        // When growing it to the requested size
+        seed(SMALL_TABLE_ROWS + 1, rows);
+        jdbcTemplate.execute("ANALYZE users");
+        final double large = averageLookupMicros(rows);
+        log.info("findByEmail average: {} us at {} rows, {} us at {} rows", small, SMALL_TABLE_ROWS, large, rows);
+
+        // Then the lookup uses the normalized email index and stays within a small factor
+        List<String> plan = jdbcTemplate.queryForList(
+                "EXPLAIN SELECT * FROM users WHERE lower(email) = lower('user1@scale.test')", String.class);
+        assertThat(String.join("\n", plan)).contains("users_email_normalized_key");
+        assertThat(large).isLessThan(small * 3);
+    }
+
+    private void seed(int from, int to) {
+        jdbcTemplate.update("""
+                INSERT INTO users (id, first_name, last_name, email, password, role)
+                SELECT uuid_generate_v4(), 'first', 'last', 'user' || g || '@scale.test', 'hash', 'USER'
+                FROM generate_series(?, ?) AS g
+                """, from, to);
+    }
+
+    private double averageLookupMicros(int rows) {
+        // warm up the plan cache before measuring
+        for (int i = 0; i < LOOKUPS / 10; i++) {
+            underTest.findByEmail(randomEmail(rows));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            assertThat(underTest.findByEmail(randomEmail(rows))).isPresent();
+        }
+        return (System.nanoTime() - start) / 1_000.0 / LOOKUPS;
+    }
+
+    private static String randomEmail(int rows) {
+        return "user" + ThreadLocalRandom.current().nextInt(1, rows + 1) + "@scale.test";
+    }
+}
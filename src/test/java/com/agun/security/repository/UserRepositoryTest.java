@@ -2,12 +2,15 @@ package com.agun.security.repository;
 
 import com.agun.security.constant.Role;
 import com.agun.security.model.User;
+import com.agun.security.security.UserCredentials;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 
 import java.util.Optional;
 
@@ -19,6 +22,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 class UserRepositoryTest {
 
     private final UserRepository underTest;
+    private final TestEntityManager entityManager;
 
     User user = User.builder()
             .firstName("John")
@@ -48,6 +52,20 @@ class UserRepositoryTest {
                 });
     }
 
+    @Test
+    void itShouldFindCredentialsByEmailWithoutManagingThem() {
+        // Given
+        entityManager.flush();
+        entityManager.clear();
+
+        // When
+        Optional<UserCredentials> credentials = underTest.findCredentialsByEmail("Test@Example.com");
+
+        // Then nothing is left in the persistence context to dirty check
+        assertThat(credentials).contains(new UserCredentials(user.getId(), "test@example.com", null, Role.USER));
+        assertThat(entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
     @Test
     void itShouldCheckEmailIfExist() {
         // Given
@@ -0,0 +1,47 @@
+package com.agun.security.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void itShouldContainEveryInsertedValue() {
+        // Given
+        BloomFilter underTest = new BloomFilter(1_000, 0.01);
+        String[] values = new String[1_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = UUID.randomUUID().toString();
+            underTest.put(values[i]);
+        }
+
+        // When
+        // Then
+        for (String value : values) {
+            assertThat(underTest.mightContain(value)).isTrue();
+        }
+    }
+
+    @Test
+    void itShouldKeepFalsePositivesNearConfiguredRate() {
+        // Given
+        BloomFilter underTest = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            underTest.put(UUID.randomUUID().toString());
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (underTest.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    }
+}
@@ -0,0 +1,48 @@
+package com.agun.security.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InstancePoolTest {
+
+    @Test
+    void itShouldReuseReleasedInstancesAcrossThreads() throws Exception {
+        // Given
+        AtomicInteger created = new AtomicInteger();
+        InstancePool<Object> underTest = new InstancePool<>(2, () -> {
+            created.incrementAndGet();
+            return new Object();
+        });
+        Object first = underTest.borrow();
+        underTest.release(first);
+
+        // When
+        Object[] borrowed = new Object[1];
+        Thread other = new Thread(() -> borrowed[0] = underTest.borrow());
+        other.start();
+        other.join();
+
+        // Then
+        assertThat(borrowed[0]).isSameAs(first);
+        assertThat(created).hasValue(1);
+    }
+
+    @Test
+    void itShouldBuildExtraInstancesWhenAllAreInUseAndDropThemWhenFull() {
+        // Given
+        InstancePool<Object> underTest = new InstancePool<>(1, Object::new);
+        Object first = underTest.borrow();
+        Object second = underTest.borrow();
+
+        // When
+        underTest.release(first);
+        underTest.release(second);
+
+        // Then only one is kept
+        assertThat(underTest.borrow()).isSameAs(first);
+        assertThat(underTest.borrow()).isNotSameAs(second);
+    }
+}
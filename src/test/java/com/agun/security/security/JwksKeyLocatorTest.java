@@ -0,0 +1,117 @@
+package com.agun.security.security;
+
+import com.agun.security.config.JwtProperties;
+import com.agun.security.controller.JwksController;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwksKeyLocatorTest {
+
+    private final AtomicInteger downloads = new AtomicInteger();
+
+    private JwtKeyRing issuerKeyRing;
+
+    private volatile long responseDelayMillis;
+
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JwtProperties properties = new JwtProperties();
+        properties.getKeyPairs().put("es1", new JwtProperties.KeyPairProperties());
+        properties.setActiveKeyId("es1");
+        issuerKeyRing = new JwtKeyRing(properties);
+
+        JwksController controller = new JwksController(issuerKeyRing);
+        ObjectMapper objectMapper = new ObjectMapper();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/.well-known/jwks.json", exchange -> {
+            downloads.incrementAndGet();
+            try {
+                Thread.sleep(responseDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = objectMapper.writeValueAsString(controller.jwks().getBody()).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void itShouldLoadPublishedKeysOnceAndRefreshOnlyForUnknownKid() throws Exception {
+        // Given
+        String uri = "http://localhost:" + server.getAddress().getPort() + "/.well-known/jwks.json";
+        JwksKeyLocator underTest = new JwksKeyLocator(uri, Duration.ZERO);
+
+        // When
+        // Then
+        assertThat(underTest.find("es1")).isEqualTo(issuerKeyRing.verificationKey("es1"));
+        assertThat(underTest.find("es1")).isNotNull();
+        assertThat(downloads).hasValue(1);
+
+        assertThat(underTest.find("unknown")).isNull();
+        awaitDownloads(2);
+    }
+
+    @Test
+    void itShouldNotWaitForTheIssuerOnUnknownKid() throws Exception {
+        // Given a slow issuer
+        String uri = "http://localhost:" + server.getAddress().getPort() + "/.well-known/jwks.json";
+        JwksKeyLocator underTest = new JwksKeyLocator(uri, Duration.ZERO);
+        responseDelayMillis = 2_000;
+
+        // When
+        long start = System.nanoTime();
+        underTest.find("unknown");
+        underTest.find("unknown");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Then the lookups return at once, and one download runs in the background
+        assertThat(elapsedMillis).isLessThan(500);
+        awaitDownloads(2);
+        Thread.sleep(100);
+        assertThat(downloads).hasValue(2);
+    }
+
+    @Test
+    void itShouldNotRefreshMoreThanOncePerInterval() {
+        // Given
+        String uri = "http://localhost:" + server.getAddress().getPort() + "/.well-known/jwks.json";
+        JwksKeyLocator underTest = new JwksKeyLocator(uri, Duration.ofMinutes(1));
+
+        // When
+        underTest.find("unknown");
+        underTest.find("other");
+
+        // Then
+        assertThat(downloads).hasValue(1);
+    }
+
+    private void awaitDownloads(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (downloads.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(downloads).hasValue(expected);
+    }
+}
@@ -0,0 +1,106 @@
+package com.agun.security.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class JwtSecurityFilterTest {
+
+    @Mock
+    private TokenManager tokenManager;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private TokenRevocationService revocationService;
+
+    @Mock
+    private FilterChain filterChain;
+
+    private JwtSecurityFilter underTest;
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest();
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @BeforeEach
+    void setUp() {
+        underTest = new JwtSecurityFilter(tokenManager, userDetailsService, revocationService,
+                new AuthMetrics(new SimpleMeterRegistry()));
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer token");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void itShouldAnswerUnauthorizedForTokenOfDeletedUser() throws Exception {
+        // Given
+        given(tokenManager.check("token")).willReturn(VerificationResult.valid(token("gone@mail.com")));
+        given(userDetailsService.loadUserByUsername("gone@mail.com")).willThrow(new UsernameNotFoundException("gone"));
+
+        // When
+        underTest.doFilter(request, response, filterChain);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(response.getHeader(HttpHeaders.WWW_AUTHENTICATE)).isEqualTo(InvalidTokenResponse.CHALLENGE);
+        then(filterChain).should(never()).doFilter(any(), any());
+    }
+
+    @Test
+    void itShouldAnswerUnauthorizedForRevokedToken() throws Exception {
+        // Given
+        given(tokenManager.check("token")).willReturn(VerificationResult.valid(token("agun@mail.com")));
+        given(revocationService.isRevoked("jti")).willReturn(true);
+
+        // When
+        underTest.doFilter(request, response, filterChain);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(401);
+        then(filterChain).should(never()).doFilter(any(), any());
+        then(userDetailsService).should(never()).loadUserByUsername(any());
+    }
+
+    @Test
+    void itShouldAnswerUnauthorizedForTokenWithoutSubject() throws Exception {
+        // Given
+        given(tokenManager.check("token")).willReturn(VerificationResult.valid(token(null)));
+
+        // When
+        underTest.doFilter(request, response, filterChain);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(401);
+        then(filterChain).should(never()).doFilter(any(), any());
+    }
+
+    private static VerifiedToken token(String subject) {
+        return new VerifiedToken("k1", "jti", subject, Instant.now(), Instant.now().plusSeconds(900), Map.of());
+    }
+}
@@ -0,0 +1,120 @@
+package com.agun.security.security;
+
+import com.agun.security.exception.TooManyRequestsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHashingExecutorTest {
+
+    private final PasswordHashingExecutor underTest = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(2));
+
+    @AfterEach
+    void tearDown() {
+        underTest.shutdown();
+    }
+
+    @Test
+    void itShouldReturnTaskResult() {
+        assertThat(underTest.execute(() -> "hashed")).isEqualTo("hashed");
+    }
+
+    @Test
+    void itShouldRethrowTaskException() {
+        assertThatThrownBy(() -> underTest.execute(() -> {
+            throw new BadCredentialsException("Username or password incorrect");
+        })).isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void itShouldRejectWhenPoolAndQueueAreFull() throws Exception {
+        // Given one running and one queued task
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> underTest.execute(() -> {
+            running.countDown();
+            await(release);
+            return "first";
+        }));
+        running.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> underTest.execute(() -> "second"));
+        while (underTest.queueSize() == 0) {
+            Thread.onSpinWait();
+        }
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.execute(() -> "third"))
+                .isInstanceOf(TooManyRequestsException.class)
+                .satisfies(e -> assertThat(((TooManyRequestsException) e).getRetryAfter()).hasSeconds(2));
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+    }
+
+    @Test
+    void itShouldFailSubmittedFutureInsteadOfThrowingWhenFull() throws Exception {
+        // Given one running and one queued task
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = underTest.submit(() -> {
+            await(release);
+            return "first";
+        });
+        CompletableFuture<String> second = underTest.submit(() -> "second");
+
+        // When
+        CompletableFuture<String> third = underTest.submit(() -> "third");
+
+        // Then
+        assertThat(third).isCompletedExceptionally();
+        assertThatThrownBy(third::join).hasCauseInstanceOf(TooManyRequestsException.class);
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+    }
+
+    @Test
+    void itShouldHashOnThePoolForAPooledEncoder() {
+        // Given an encoder that notes the thread it runs on
+        AtomicReference<String> matchedOn = new AtomicReference<>();
+        PasswordEncoder encoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return "hashed";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                matchedOn.set(Thread.currentThread().getName());
+                return true;
+            }
+        };
+
+        // When
+        boolean matches = new PooledPasswordEncoder(encoder, underTest).matches("password", "hashed");
+
+        // Then
+        assertThat(matches).isTrue();
+        assertThat(matchedOn.get()).startsWith("password-hashing-");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.agun.security.security;
+
+import com.agun.security.constant.Permission;
+import com.agun.security.constant.Role;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PermissionAuthorizationManagerTest {
+
+    private final PermissionAuthorizationManager<Object> underTest =
+            PermissionAuthorizationManager.requires(Permission.USERS_MANAGE);
+
+    @Test
+    void itShouldGrantOnlyWhenEveryRequiredBitIsSet() {
+        // Given
+        Authentication admin = authentication(Role.ADMIN, Role.ADMIN.permissions());
+        Authentication user = authentication(Role.USER, Role.USER.permissions());
+
+        // When
+        // Then
+        assertThat(underTest.check(() -> admin, null).isGranted()).isTrue();
+        assertThat(underTest.check(() -> user, null).isGranted()).isFalse();
+        assertThat(underTest.check(Mono.just(admin), null).block().isGranted()).isTrue();
+        assertThat(underTest.check(Mono.empty(), null).block().isGranted()).isFalse();
+    }
+
+    @Test
+    void itShouldGoByTheTokenBitsRatherThanTheRole() {
+        // Given an admin token issued without the permission
+        Authentication restricted = authentication(Role.ADMIN, Permission.ACCOUNT_READ.bit());
+
+        // When
+        // Then
+        assertThat(underTest.check(() -> restricted, null).isGranted()).isFalse();
+    }
+
+    @Test
+    void itShouldKeepMetricsFromPlainUsers() {
+        // Given
+        PermissionAuthorizationManager<Object> metrics = PermissionAuthorizationManager.requires(Permission.METRICS_READ);
+        Authentication admin = authentication(Role.ADMIN, Role.ADMIN.permissions());
+        Authentication user = authentication(Role.USER, Role.USER.permissions());
+
+        // When
+        // Then
+        assertThat(metrics.check(() -> admin, null).isGranted()).isTrue();
+        assertThat(metrics.check(() -> user, null).isGranted()).isFalse();
+    }
+
+    @Test
+    void itShouldDenyAnonymousRequests() {
+        // Given
+        Authentication anonymous = new AnonymousAuthenticationToken(
+                "key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+
+        // When
+        // Then
+        assertThat(underTest.check(() -> anonymous, null).isGranted()).isFalse();
+    }
+
+    private static Authentication authentication(Role role, long permissions) {
+        TokenPrincipal principal = new TokenPrincipal(UUID.randomUUID(), "test@example.com", role, permissions);
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+}
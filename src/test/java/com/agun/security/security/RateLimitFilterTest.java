@@ -0,0 +1,95 @@
+package com.agun.security.security;
+
+import com.agun.security.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private static final String BODY = "{\"email\":\"agun@mail.com\",\"password\":\"secret\"}";
+
+    private final AuthRateLimiter rateLimiter = new AuthRateLimiter(properties(), new AuthMetrics(new SimpleMeterRegistry()));
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/api/auth/%6Cogin", "/api/auth/LOGIN", "/api/auth/login/", "/api//auth/login",
+            "/api/auth/login;a=b", "/api/auth/%72egister"})
+    void itShouldLimitEveryServletSpellingOfTheEndpoints(String uri) throws Exception {
+        // Given the address used up its one call on the plain path
+        assertThat(servletCall("/api/auth/login")).isEqualTo(200);
+
+        // When
+        int status = servletCall(uri);
+
+        // Then
+        assertThat(status).isEqualTo(429);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/api/auth/%6Cogin", "/api/auth/LOGIN", "/api/auth/login/", "/api//auth/login",
+            "/api/auth/login;a=b", "/api/auth/%72egister"})
+    void itShouldLimitEveryReactiveSpellingOfTheEndpoints(String uri) {
+        // Given the address used up its one call on the plain path
+        assertThat(reactiveCall("/api/auth/login")).isEqualTo(200);
+
+        // When
+        int status = reactiveCall(uri);
+
+        // Then
+        assertThat(status).isEqualTo(429);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/api/auth/refresh", "/api/auth/loginx", "/api/users"})
+    void itShouldLeaveOtherPathsAlone(String uri) throws Exception {
+        // Given
+        assertThat(servletCall("/api/auth/login")).isEqualTo(200);
+
+        // When
+        // Then
+        assertThat(servletCall(uri)).isEqualTo(200);
+        assertThat(reactiveCall(uri)).isEqualTo(200);
+    }
+
+    private int servletCall(String uri) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setRemoteAddr("10.0.0.1");
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new RateLimitFilter(rateLimiter).doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+
+    // URI.create keeps the percent-encoding as sent, the template variant would encode it again
+    private int reactiveCall(String uri) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.method(HttpMethod.POST, URI.create(uri))
+                .remoteAddress(new InetSocketAddress("10.0.0.2", 40000))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BODY));
+        new RateLimitWebFilter(rateLimiter).filter(exchange, e -> Mono.empty()).block();
+        return exchange.getResponse().getStatusCode() == null ? 200 : exchange.getResponse().getStatusCode().value();
+    }
+
+    private static RateLimitProperties properties() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setPerIp(new RateLimitProperties.Limit(1, Duration.ofMinutes(1)));
+        properties.setPerEmail(new RateLimitProperties.Limit(100, Duration.ofMinutes(1)));
+        return properties;
+    }
+}
@@ -0,0 +1,117 @@
+package com.agun.security.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+
+    @Test
+    void itShouldAllowTheBurstThenRejectWithTheWaitUntilRefill() {
+        // Given
+        RateLimiter underTest = new RateLimiter(5, Duration.ofMinutes(1), 100, clock::get);
+        for (int i = 0; i < 5; i++) {
+            assertThat(underTest.tryAcquire("10.0.0.1")).isZero();
+        }
+
+        // When
+        long wait = underTest.tryAcquire("10.0.0.1");
+
+        // Then
+        assertThat(wait).isEqualTo(TimeUnit.SECONDS.toNanos(12));
+        assertThat(underTest.tryAcquire("10.0.0.2")).isZero();
+        clock.addAndGet(wait);
+        assertThat(underTest.tryAcquire("10.0.0.1")).isZero();
+        assertThat(underTest.tryAcquire("10.0.0.1")).isPositive();
+    }
+
+    @Test
+    void itShouldEvictKeysWhoseBucketHasRefilled() {
+        // Given
+        RateLimiter underTest = new RateLimiter(2, Duration.ofSeconds(2), 100, clock::get);
+        underTest.tryAcquire("idle");
+        underTest.tryAcquire("busy");
+        underTest.tryAcquire("busy");
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        // When
+        underTest.evictIdle();
+
+        // Then
+        assertThat(underTest.size()).isEqualTo(1);
+        assertThat(underTest.tryAcquire("busy")).isZero();
+        assertThat(underTest.tryAcquire("busy")).isPositive();
+    }
+
+    @Test
+    void itShouldRejectNewKeysWhenFullOfActiveOnes() {
+        // Given
+        RateLimiter underTest = new RateLimiter(10, Duration.ofSeconds(10), 2, clock::get);
+        underTest.tryAcquire("a");
+        underTest.tryAcquire("b");
+
+        // When
+        long wait = underTest.tryAcquire("c");
+
+        // Then
+        assertThat(wait).isPositive();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertThat(underTest.tryAcquire("c")).isZero();
+    }
+
+    @Test
+    void itShouldNeverAdmitMoreThanTheBurstUnderContention() throws InterruptedException {
+        // Given
+        RateLimiter underTest = new RateLimiter(100, Duration.ofHours(1), 100, clock::get);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger admitted = new AtomicInteger();
+
+        // When
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < 1_000; i++) {
+                    if (underTest.tryAcquire("shared") == 0) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // Then
+        assertThat(admitted.get()).isEqualTo(100);
+    }
+
+    @Test
+    void itShouldReadTheEmailTheBodyBindsTo() {
+        // Given
+        String escaped = "{\"password\":\"email\",\"\\u0065mail\":\"Victim@Example.com\"}";
+        String duplicated = "{\"email\":\"decoy@example.com\",\"nested\":{\"email\":\"x\"},\"email\":\"victim@example.com\"}";
+
+        // When
+        // Then
+        assertThat(AuthRateLimiter.emailOf(escaped.getBytes(StandardCharsets.UTF_8))).isEqualTo("Victim@Example.com");
+        assertThat(AuthRateLimiter.emailOf(duplicated.getBytes(StandardCharsets.UTF_8))).isEqualTo("victim@example.com");
+        assertThat(AuthRateLimiter.emailOf("not json".getBytes(StandardCharsets.UTF_8))).isNull();
+        assertThat(AuthRateLimiter.emailOf(new byte[0])).isNull();
+    }
+}
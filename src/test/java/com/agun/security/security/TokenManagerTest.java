@@ -0,0 +1,369 @@
+package com.agun.security.security;
+
+import com.agun.security.config.JwtProperties;
+import com.agun.security.constant.Permission;
+import com.agun.security.constant.Role;
+import com.agun.security.model.User;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenManagerTest {
+
+    private JwtProperties properties;
+
+    private JwtKeyRing keyRing;
+
+    private TokenManager underTest;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final AuthMetrics metrics = new AuthMetrics(registry);
+
+    private final User user = User.builder()
+            .firstName("John")
+            .lastName("Doe")
+            .email("test@example.com")
+            .password("hashedPassword")
+            .role(Role.USER)
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        properties = new JwtProperties();
+        properties.setActiveKeyId("k1");
+        properties.getKeys().put("k1", "NSIq5owaB28TAkUVqZmCovjTNd8E8RFOC6GJqeubOVAr7ReP0N7yTuQn8F9a9sqG");
+        keyRing = new JwtKeyRing(properties);
+        underTest = new TokenManager(keyRing, properties, new VerifiedTokenCache(properties), metrics);
+    }
+
+    @Test
+    void itShouldVerifyTokenOnce() {
+        // Given
+        String token = underTest.generateToken(Map.of("scope", "api"), user, 60_000L);
+
+        // When
+        VerifiedToken verified = underTest.verify(token);
+
+        // Then
+        assertThat(verified.subject()).isEqualTo("test@example.com");
+        assertThat(verified.issuedAt()).isBeforeOrEqualTo(Instant.now());
+        assertThat(verified.expiresAt()).isAfter(verified.issuedAt());
+        assertThat(verified.claim("scope", String.class)).isEqualTo("api");
+        assertThat(underTest.isTokenValid(verified, user)).isTrue();
+    }
+
+    @Test
+    void itShouldRecordParseAndSignatureTimeSeparately() {
+        // Given
+        String token = underTest.generateToken(user);
+
+        // When
+        underTest.verify(token);
+
+        // Then
+        assertThat(registry.get("auth.token.verification").tag("phase", "signature").timer().count()).isEqualTo(1);
+        assertThat(registry.get("auth.token.verification").tag("phase", "signature").timer().totalTime(TimeUnit.NANOSECONDS)).isPositive();
+        assertThat(registry.get("auth.token.verification").tag("phase", "parse").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldCheckValidTokenWithoutThrowing() {
+        // Given
+        String token = underTest.generateToken(user);
+
+        // When
+        VerificationResult result = underTest.check(token);
+
+        // Then
+        assertThat(result.isValid()).isTrue();
+        assertThat(result.token().subject()).isEqualTo("test@example.com");
+    }
+
+    @Test
+    void itShouldRejectMalformedTokenBeforeParsing() {
+        assertThat(underTest.check("not-a-jwt")).isSameAs(VerificationResult.MALFORMED);
+        assertThat(underTest.check("a.b.c.d.e.f.g.h.i.j")).isSameAs(VerificationResult.MALFORMED);
+        assertThat(underTest.check("eyJhbGciOiJIUzI1NiJ9.e30=.c2ln")).isSameAs(VerificationResult.MALFORMED);
+        assertThat(underTest.check("eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiJ4In0.")).isSameAs(VerificationResult.MALFORMED);
+    }
+
+    @Test
+    void itShouldRejectHeaderOfUnknownKey() {
+        // Given a token signed by a key the ring does not hold
+        String foreign = Jwts.builder().header().keyId("other").and().subject("test@example.com")
+                .signWith(Jwts.SIG.HS256.key().build()).compact();
+
+        // When
+        // Then
+        assertThat(underTest.check(foreign)).isSameAs(VerificationResult.UNKNOWN_KEY);
+    }
+
+    @Test
+    void itShouldRejectExpiredTokenBeforeVerifyingSignature() {
+        // Given
+        String expired = underTest.generateToken(Map.of(), user, -60_000L);
+
+        // When
+        VerificationResult result = underTest.check(expired);
+
+        // Then
+        assertThat(result).isSameAs(VerificationResult.EXPIRED);
+        assertThat(registry.get("auth.token.verification").tag("phase", "signature").timer().count()).isZero();
+    }
+
+    @Test
+    void itShouldRejectTamperedSignature() {
+        // Given
+        String token = underTest.generateToken(user);
+        char last = token.charAt(token.length() - 2);
+        String tampered = token.substring(0, token.length() - 2) + (last == 'A' ? 'B' : 'A') + token.charAt(token.length() - 1);
+
+        // When
+        // Then
+        assertThat(underTest.check(tampered)).isSameAs(VerificationResult.BAD_SIGNATURE);
+    }
+
+    @Test
+    void itShouldRejectTokenForAnotherUser() {
+        // Given
+        VerifiedToken verified = underTest.verify(underTest.generateToken(user));
+        User other = User.builder().email("other@example.com").role(Role.USER).build();
+
+        // When
+        // Then
+        assertThat(underTest.isTokenValid(verified, other)).isFalse();
+    }
+
+    @Test
+    void itShouldRejectTamperedToken() {
+        // Given
+        String token = underTest.generateToken(user);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.verify(tampered)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void itShouldKeepVerifyingRotatedKeyUntilRetired() {
+        // Given token signed with the old key
+        String oldToken = underTest.generateToken(user);
+
+        // When rotating to a new key
+        keyRing.addKey("k2", Jwts.SIG.HS256.key().build());
+        keyRing.activate("k2");
+        String newToken = underTest.generateToken(user);
+
+        // Then both keys verify
+        assertThat(underTest.verify(oldToken).subject()).isEqualTo("test@example.com");
+        assertThat(underTest.verify(newToken).subject()).isEqualTo("test@example.com");
+
+        // ... until the old key is retired
+        keyRing.retire("k1");
+        assertThatThrownBy(() -> underTest.verify(oldToken)).isInstanceOf(JwtException.class);
+        assertThat(underTest.verify(newToken).subject()).isEqualTo("test@example.com");
+    }
+
+    @Test
+    void itShouldBuildPrincipalFromClaimsInStatelessMode() {
+        // Given
+        properties.setStateless(true);
+        user.setId(UUID.randomUUID());
+
+        // When
+        AuthenticatedUser principal = underTest.toPrincipal(underTest.verify(underTest.generateToken(user)));
+
+        // Then
+        assertThat(principal.getId()).isEqualTo(user.getId());
+        assertThat(principal.getUsername()).isEqualTo("test@example.com");
+        assertThat(principal.getRole()).isEqualTo(Role.USER);
+        assertThat(principal.getPermissions()).isEqualTo(Permission.ACCOUNT_READ.bit());
+    }
+
+    @Test
+    void itShouldKeepThePermissionsTheTokenWasIssuedWith() {
+        // Given a token from before a role lost a permission
+        properties.setStateless(true);
+        user.setId(UUID.randomUUID());
+        long issued = Permission.maskOf(Permission.ACCOUNT_READ, Permission.USERS_MANAGE);
+        String token = underTest.generateToken(Map.of(
+                TokenManager.USER_ID_CLAIM, user.getId().toString(),
+                TokenManager.ROLE_CLAIM, Role.USER.name(),
+                TokenManager.PERMISSIONS_CLAIM, issued), user, 60_000L);
+
+        // When
+        AuthenticatedUser principal = underTest.toPrincipal(underTest.verify(token));
+
+        // Then
+        assertThat(principal.getPermissions()).isEqualTo(issued);
+        assertThat(principal.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("USER", "account:read", "users:manage");
+        assertThat(principal.getAuthorities()).isSameAs(underTest.toPrincipal(underTest.verify(token)).getAuthorities());
+    }
+
+    @Test
+    void itShouldNotBuildPrincipalWhenStatelessModeIsOff() {
+        // Given
+        // When
+        AuthenticatedUser principal = underTest.toPrincipal(underTest.verify(underTest.generateToken(user)));
+
+        // Then
+        assertThat(principal).isNull();
+    }
+
+    @Test
+    void itShouldIssueCompactTokensNamingTheUserById() {
+        // Given
+        properties.setCompact(true);
+        properties.setStateless(true);
+        user.setId(UUID.randomUUID());
+        String standard = underTest.generateToken(Map.of(
+                TokenManager.USER_ID_CLAIM, user.getId().toString(),
+                TokenManager.ROLE_CLAIM, Role.USER.name(),
+                TokenManager.PERMISSIONS_CLAIM, Role.USER.permissions()), user, 60_000L);
+
+        // When
+        String compact = underTest.generateToken(user);
+        VerificationResult result = underTest.check(compact);
+        AuthenticatedUser principal = underTest.toPrincipal(result.token());
+
+        // Then
+        assertThat(compact.length()).isLessThan(standard.length());
+        assertThat(result.token().subject()).hasSize(22);
+        assertThat(TokenManager.userIdOf(result.token().subject())).isEqualTo(user.getId());
+        assertThat(TokenManager.userIdOf("test@example.com")).isNull();
+        assertThat(result.token().tokenId()).hasSize(22);
+        assertThat(principal.getId()).isEqualTo(user.getId());
+        assertThat(principal.getRole()).isEqualTo(Role.USER);
+        assertThat(principal.getPermissions()).isEqualTo(Role.USER.permissions());
+        assertThat(underTest.isTokenValid(result.token(), user)).isTrue();
+    }
+
+    @Test
+    void itShouldRejectTamperedCompactTokenBeforeReadingIt() {
+        // Given
+        properties.setCompact(true);
+        user.setId(UUID.randomUUID());
+        String token = underTest.generateToken(user);
+        char last = token.charAt(token.length() - 2);
+        String tampered = token.substring(0, token.length() - 2) + (last == 'A' ? 'B' : 'A') + token.charAt(token.length() - 1);
+
+        // When
+        // Then
+        assertThat(underTest.check(tampered)).isSameAs(VerificationResult.BAD_SIGNATURE);
+        assertThatThrownBy(() -> underTest.verify(tampered)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void itShouldRejectForgedCompactTokenAsBadSignatureWithoutParsingItsPayload() {
+        // Given our header, a payload that is not JSON and a signature that does not match
+        properties.setCompact(true);
+        user.setId(UUID.randomUUID());
+        String header = underTest.generateToken(user).split("\\.")[0];
+        String payload = Base64.getUrlEncoder().withoutPadding().encodeToString("{\"sub\":".getBytes(StandardCharsets.UTF_8));
+        String forged = header + "." + payload + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(new byte[32]);
+
+        // When
+        VerificationResult result = CompactTokenParser.parse(forged, keyRing.hmacKeys(), System.currentTimeMillis(), metrics);
+
+        // Then
+        assertThat(result).isSameAs(VerificationResult.BAD_SIGNATURE);
+        assertThat(underTest.check(forged)).isSameAs(VerificationResult.BAD_SIGNATURE);
+    }
+
+    @Test
+    void itShouldKeepVerifyingStandardTokensInCompactMode() {
+        // Given a token issued before the profile was switched on
+        String standard = underTest.generateToken(user);
+        properties.setCompact(true);
+
+        // When
+        VerificationResult result = underTest.check(standard);
+
+        // Then
+        assertThat(result.isValid()).isTrue();
+        assertThat(result.token().subject()).isEqualTo("test@example.com");
+    }
+
+    @Test
+    void itShouldServeRepeatedVerificationsFromCache() {
+        // Given
+        properties.getVerificationCache().setEnabled(true);
+        VerifiedTokenCache cache = new VerifiedTokenCache(properties, metrics);
+        underTest = new TokenManager(keyRing, properties, cache, metrics);
+        String token = underTest.generateToken(user);
+
+        // When
+        VerifiedToken first = underTest.verify(token);
+        VerifiedToken second = underTest.verify(token);
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(cache.stats().hits()).isEqualTo(1);
+        assertThat(registry.get("auth.token.verification.cache.hit_ratio").gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    void itShouldNotServeCachedTokenPastItsExpiry() {
+        // Given
+        properties.getVerificationCache().setEnabled(true);
+        VerifiedTokenCache cache = new VerifiedTokenCache(properties);
+        VerifiedToken verified = new VerifiedToken("k1", "jti", "test@example.com", Instant.now(),
+                Instant.now().plusSeconds(1), Map.of());
+
+        // When
+        cache.put("token", verified, System.currentTimeMillis());
+
+        // Then
+        assertThat(cache.get("token", System.currentTimeMillis())).isSameAs(verified);
+        assertThat(cache.get("token", System.currentTimeMillis() + 1_000)).isNull();
+    }
+
+    @Test
+    void itShouldNotServeCachedTokenSignedWithRetiredKey() {
+        // Given
+        properties.getVerificationCache().setEnabled(true);
+        underTest = new TokenManager(keyRing, properties, new VerifiedTokenCache(properties), metrics);
+        String token = underTest.generateToken(user);
+        underTest.verify(token);
+
+        // When
+        keyRing.addKey("k2", Jwts.SIG.HS256.key().build());
+        keyRing.activate("k2");
+        keyRing.retire("k1");
+
+        // Then
+        assertThatThrownBy(() -> underTest.verify(token)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void itShouldSignAndVerifyWithEcKeyPair() {
+        // Given
+        properties.getKeyPairs().put("es1", new JwtProperties.KeyPairProperties());
+        properties.setActiveKeyId("es1");
+        underTest = new TokenManager(new JwtKeyRing(properties), properties, new VerifiedTokenCache(properties), metrics);
+
+        // When
+        VerifiedToken verified = underTest.verify(underTest.generateToken(user));
+
+        // Then
+        assertThat(verified.keyId()).isEqualTo("es1");
+        assertThat(verified.subject()).isEqualTo("test@example.com");
+    }
+}
@@ -0,0 +1,75 @@
+package com.agun.security.security;
+
+import com.agun.security.config.JwtProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class TokenRevocationServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final TokenRevocationService underTest = new TokenRevocationService(jdbcTemplate, new JwtProperties());
+
+    @Test
+    void itShouldReportRevokedTokenWithoutQueryingTheDatabase() {
+        // Given
+        underTest.revoke("revoked-jti", Instant.now().plusSeconds(60));
+
+        // When
+        // Then
+        assertThat(underTest.isRevoked("revoked-jti")).isTrue();
+        assertThat(underTest.isRevoked("other-jti")).isFalse();
+        assertThat(underTest.isRevoked(null)).isFalse();
+        verify(jdbcTemplate, never()).queryForObject(anyString(), any(Class.class), any(Object[].class));
+    }
+
+    @Test
+    void itShouldIgnoreAlreadyExpiredTokens() {
+        // Given
+        underTest.revoke("expired-jti", Instant.now().minusSeconds(1));
+
+        // When
+        // Then
+        assertThat(underTest.isRevoked("expired-jti")).isFalse();
+        assertThat(underTest.stats().revokedTokens()).isZero();
+    }
+
+    @Test
+    void itShouldReportMemoryPerRevokedToken() {
+        // Given
+        underTest.revoke("revoked-jti", Instant.now().plusSeconds(60));
+
+        // When
+        TokenRevocationService.Stats stats = underTest.stats();
+
+        // Then
+        assertThat(stats.revokedTokens()).isEqualTo(1);
+        assertThat(stats.bloomFilterBytes()).isPositive();
+        assertThat(stats.bytesPerRevokedToken()).isGreaterThan(stats.bloomFilterBytes());
+    }
+
+    @Test
+    void itShouldExportItsStatsAsGauges() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TokenRevocationService revocations = new TokenRevocationService(jdbcTemplate, new JwtProperties(), new AuthMetrics(registry));
+
+        // When
+        revocations.revoke("revoked-jti", Instant.now().plusSeconds(60));
+
+        // Then
+        assertThat(registry.get("auth.revocation.tokens").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("auth.revocation.memory.per_token").gauge().value())
+                .isEqualTo(revocations.stats().bytesPerRevokedToken());
+    }
+}
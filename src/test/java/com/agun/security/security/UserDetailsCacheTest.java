@@ -0,0 +1,160 @@
+package com.agun.security.security;
+
+import com.agun.security.constant.Role;
+import com.agun.security.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserDetailsCacheTest {
+
+    private final AtomicInteger queries = new AtomicInteger();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private UserDetails lookup(String username) {
+        queries.incrementAndGet();
+        if (username.startsWith("missing")) {
+            throw new UsernameNotFoundException("User not found");
+        }
+        return User.builder().email(username).role(Role.USER).build();
+    }
+
+    @Test
+    void itShouldServeRepeatedLookupsFromCache() {
+        // Given
+        UserDetailsCache underTest = new UserDetailsCache(this::lookup, 10, Duration.ofMinutes(1), clock::get);
+
+        // When
+        UserDetails first = underTest.loadUserByUsername("test@example.com");
+        UserDetails second = underTest.loadUserByUsername("test@example.com");
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(queries).hasValue(1);
+        assertThat(underTest.stats().hits()).isEqualTo(1);
+        assertThat(underTest.stats().misses()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldReloadAfterTtl() {
+        // Given
+        UserDetailsCache underTest = new UserDetailsCache(this::lookup, 10, Duration.ofSeconds(30), clock::get);
+        underTest.loadUserByUsername("test@example.com");
+
+        // When
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        underTest.loadUserByUsername("test@example.com");
+
+        // Then
+        assertThat(queries).hasValue(2);
+        assertThat(underTest.stats().evictions()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldReloadAfterEvict() {
+        // Given
+        UserDetailsCache underTest = new UserDetailsCache(this::lookup, 10, Duration.ofMinutes(1), clock::get);
+        underTest.loadUserByUsername("test@example.com");
+
+        // When
+        underTest.evict("test@example.com");
+        underTest.loadUserByUsername("test@example.com");
+
+        // Then
+        assertThat(queries).hasValue(2);
+    }
+
+    @Test
+    void itShouldStayWithinMaximumSize() {
+        // Given
+        UserDetailsCache underTest = new UserDetailsCache(this::lookup, 3, Duration.ofMinutes(1), clock::get);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            underTest.loadUserByUsername("user" + i + "@example.com");
+        }
+
+        // Then
+        assertThat(underTest.stats().size()).isLessThanOrEqualTo(3);
+        assertThat(underTest.stats().evictions()).isEqualTo(7);
+    }
+
+    @Test
+    void itShouldNotCacheMissingUsers() {
+        // Given
+        UserDetailsCache underTest = new UserDetailsCache(this::lookup, 10, Duration.ofMinutes(1), clock::get);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.loadUserByUsername("missing@example.com"))
+                .isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> underTest.loadUserByUsername("missing@example.com"))
+                .isInstanceOf(UsernameNotFoundException.class);
+        assertThat(queries).hasValue(2);
+    }
+
+    @Test
+    void itShouldLoadOnceForConcurrentMisses() throws Exception {
+        // Given a slow lookup
+        CountDownLatch release = new CountDownLatch(1);
+        UserDetailsCache underTest = new UserDetailsCache(username -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return lookup(username);
+        }, 10, Duration.ofMinutes(1), clock::get);
+
+        // When
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<UserDetails>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> underTest.loadUserByUsername("test@example.com")));
+        }
+        Thread.sleep(100);
+        release.countDown();
+        for (Future<UserDetails> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS).getUsername()).isEqualTo("test@example.com");
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(queries).hasValue(1);
+    }
+
+    @Test
+    void itShouldExportItsCountersAsMeters() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UserDetailsCache underTest = new UserDetailsCache(this::lookup, 10, Duration.ofMinutes(1), clock::get);
+        new AuthMetrics(registry).userCache(underTest);
+
+        // When
+        underTest.loadUserByUsername("test@example.com");
+        underTest.loadUserByUsername("test@example.com");
+        underTest.evict("test@example.com");
+
+        // Then
+        assertThat(registry.get("auth.user.cache.requests").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("auth.user.cache.requests").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("auth.user.cache.evictions").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("auth.user.cache.size").gauge().value()).isZero();
+    }
+}
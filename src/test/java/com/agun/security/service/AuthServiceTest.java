@@ -3,11 +3,16 @@ package com.agun.security.service;
 import com.agun.security.dto.AuthenticationResponse;
 import com.agun.security.dto.DefaultResponse;
 import com.agun.security.dto.LoginRequest;
+import com.agun.security.dto.RefreshRequest;
 import com.agun.security.dto.RegisterRequest;
 import com.agun.security.constant.Role;
 import com.agun.security.model.User;
 import com.agun.security.repository.UserRepository;
+import com.agun.security.security.PasswordHashingExecutor;
 import com.agun.security.security.TokenManager;
+import com.agun.security.security.TokenRevocationService;
+import com.agun.security.security.VerifiedToken;
+import com.agun.security.security.UserDetailsCache;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,13 +22,17 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import java.util.Optional;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -48,13 +57,24 @@ class AuthServiceTest {
     @Mock
     private AuthenticationManager authenticationManager;
 
+    @Mock
+    private UserDetailsCache userDetailsCache;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private TokenRevocationService revocationService;
+
     @InjectMocks
     private AuthService underTest;
 
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
-        underTest = new AuthService(userRepository, passwordEncoder, tokenManager, authenticationManager);
+        underTest = new AuthService(userRepository, passwordEncoder, tokenManager, authenticationManager, userDetailsCache,
+                new PasswordHashingExecutor(1, 10, Duration.ofSeconds(1)), refreshTokenService,
+                revocationService);
     }
 
     @Test
@@ -73,9 +93,6 @@ class AuthServiceTest {
                 .password("hashedPassword")
                 .role(Role.USER).build();
 
-        // ... no exist user
-        given(userRepository.existsByEmail(request.getEmail())).willReturn(false);
-
         // ... hashed password
         given(passwordEncoder.encode(request.getPassword())).willReturn("hashedPassword");
 
@@ -88,7 +105,7 @@ class AuthServiceTest {
 
         // Then
         ArgumentCaptor<User> userArgumentCaptor = ArgumentCaptor.forClass(User.class);
-        then(userRepository).should().save(userArgumentCaptor.capture());
+        then(userRepository).should().saveAndFlush(userArgumentCaptor.capture());
         User userArgumentCaptorValue = userArgumentCaptor.getValue();
 
         assertThat(userArgumentCaptorValue.getRole()).isEqualTo(Role.USER);
@@ -100,7 +117,9 @@ class AuthServiceTest {
         assertThat(response.getData().get(0).getToken()).isEqualTo(accessToken);
 
         // Verify
-        verify(userRepository, times(1)).save(any(User.class));
+        verify(userRepository, times(1)).saveAndFlush(any(User.class));
+        verify(userRepository, never()).existsByEmail(any(String.class));
+        verify(userDetailsCache, times(1)).evict(request.getEmail());
     }
 
     @Test
@@ -117,15 +136,42 @@ class AuthServiceTest {
                 .password("hashedPassword")
                 .role(Role.USER).build();
 
-        // ... no exist user
-        given(userRepository.existsByEmail(request.getEmail())).willReturn(true);
+        // ... existing user, the unique email index rejects the insert
+        given(userRepository.saveAndFlush(any(User.class)))
+                .willThrow(new DataIntegrityViolationException("users_email_normalized_key"));
 
         // When
         assertThatThrownBy(() -> underTest.register(request)).isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("Username already taken");
 
         // Then
-        then(userRepository).should(never()).save(any(User.class));
+        then(tokenManager).should(never()).generateToken(any(User.class));
+    }
+
+    @Test
+    void itShouldNotReportOtherConstraintViolationsAsTakenEmail() {
+        // Given a name longer than its column
+        RegisterRequest request = new RegisterRequest("J".repeat(300), "Doe", "test@example.com", "plainPassword");
+        given(userRepository.saveAndFlush(any(User.class)))
+                .willThrow(new DataIntegrityViolationException("value too long for type character varying(255)"));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.register(request)).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void itShouldRegisterWithNormalizedEmail() {
+        // Given
+        RegisterRequest request = new RegisterRequest("John", "Doe", "  Test@Example.COM ", "plainPassword");
+
+        // When
+        underTest.register(request);
+
+        // Then
+        ArgumentCaptor<User> userArgumentCaptor = ArgumentCaptor.forClass(User.class);
+        then(userRepository).should().saveAndFlush(userArgumentCaptor.capture());
+        assertThat(userArgumentCaptor.getValue().getEmail()).isEqualTo("test@example.com");
     }
 
     @Test
@@ -136,12 +182,11 @@ class AuthServiceTest {
         // ... existing user
         User existingUser = mock(User.class);
 
-        given(userRepository.findByEmail(any(String.class)))
-                .willReturn(Optional.ofNullable(existingUser));
-
-        // ... authentication manager
+        // ... authentication manager returning the loaded user as principal
+        Authentication authentication = mock(Authentication.class);
+        given(authentication.getPrincipal()).willReturn(existingUser);
         given(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
-                .willReturn(mock(Authentication.class));
+                .willReturn(authentication);
 
         // ... generate access token
         given(tokenManager.generateToken(existingUser)).willReturn("access_token");
@@ -155,6 +200,36 @@ class AuthServiceTest {
         assertThat(result.getData()).hasSize(1);
         assertThat(result.getData().get(0).getToken()).isEqualTo("access_token");
 
+        // Verify the user is not loaded a second time
+        verify(userRepository, never()).findByEmail(any(String.class));
+    }
+
+    @Test
+    void itShouldUpgradeOutdatedPasswordHashOnLogin() {
+        // Given login request
+        LoginRequest request = new LoginRequest("agun@mail.com", "plainPassword");
+
+        // ... user with a hash from an older encoder
+        User existingUser = User.builder()
+                .id(UUID.randomUUID())
+                .email("agun@mail.com")
+                .password("$2a$10$legacyHash")
+                .role(Role.USER).build();
+
+        Authentication authentication = mock(Authentication.class);
+        given(authentication.getPrincipal()).willReturn(existingUser);
+        given(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .willReturn(authentication);
+        given(passwordEncoder.upgradeEncoding("$2a$10$legacyHash")).willReturn(true);
+        given(passwordEncoder.encode(request.getPassword())).willReturn("{bcrypt}$2a$12$upgradedHash");
+
+        // When
+        underTest.login(request);
+
+        // Then
+        verify(userRepository, times(1)).updatePassword(existingUser.getId(), "{bcrypt}$2a$12$upgradedHash");
+        verify(userDetailsCache, times(1)).evict("agun@mail.com");
+        verify(userDetailsCache, times(1)).evict(TokenManager.encodeId(existingUser.getId()));
     }
 
     @Test
@@ -162,13 +237,14 @@ class AuthServiceTest {
         // Given login request
         LoginRequest request = new LoginRequest("agun@mail.com", "plainPassword");
 
-        // ... not existing user
-        given(userRepository.findByEmail(any(String.class))).willReturn(Optional.empty());
+        // ... not existing user, the provider hides it behind bad credentials
+        given(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .willThrow(new BadCredentialsException("Username or password incorrect"));
 
         // When
         // Then
         assertThatThrownBy(() -> underTest.login(request))
-                .isInstanceOf(IllegalArgumentException.class).
+                .isInstanceOf(BadCredentialsException.class).
                 hasMessage("Username or password incorrect");
 
     }
@@ -186,9 +262,6 @@ class AuthServiceTest {
                 .password("hashedPassword")
                 .role(Role.USER).build();
 
-        // ... existing user
-        given(userRepository.findByEmail(request.getEmail())).willReturn(Optional.ofNullable(existingUser));
-
         given(authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())))
                 .willThrow(new BadCredentialsException("Username or password incorrect"));
 
@@ -198,8 +271,8 @@ class AuthServiceTest {
                 .isInstanceOf(BadCredentialsException.class)
                 .hasMessage("Username or password incorrect");
 
-        // Verify that UserRepository method is called
-        verify(userRepository, times(1)).findByEmail(request.getEmail());
+        // Verify that UserRepository is not queried outside the provider
+        verify(userRepository, never()).findByEmail(request.getEmail());
 
         // Verify that AuthenticationManager method is called
         verify(authenticationManager, times(1)).authenticate(any(UsernamePasswordAuthenticationToken.class));
@@ -207,4 +280,38 @@ class AuthServiceTest {
         // Verify that TokenManager method is NOT called in this case
         verify(tokenManager, never()).generateToken(existingUser);
     }
-}
\ No newline at end of file
+
+    @Test
+    void itShouldRefreshWithoutPasswordCheck() {
+        // Given
+        User existingUser = User.builder().id(UUID.randomUUID()).email("agun@mail.com").role(Role.USER).build();
+        given(refreshTokenService.rotate("refresh_token"))
+                .willReturn(new RefreshTokenService.Rotation(existingUser, "next_refresh_token"));
+        given(tokenManager.generateToken(existingUser)).willReturn("access_token");
+
+        // When
+        DefaultResponse<AuthenticationResponse> result = underTest.refresh(new RefreshRequest("refresh_token"));
+
+        // Then
+        assertThat(result.getData().get(0).getToken()).isEqualTo("access_token");
+        assertThat(result.getData().get(0).getRefreshToken()).isEqualTo("next_refresh_token");
+        verify(authenticationManager, never()).authenticate(any());
+        verify(passwordEncoder, never()).matches(any(), any());
+    }
+
+    @Test
+    void itShouldRevokeAccessAndRefreshTokenOnLogout() {
+        // Given
+        VerifiedToken accessToken = new VerifiedToken("k1", "jti", "agun@mail.com", Instant.now(),
+                Instant.now().plusSeconds(900), Map.of());
+
+        UUID userId = UUID.randomUUID();
+
+        // When
+        underTest.logout(accessToken, userId, "refresh_token");
+
+        // Then
+        verify(revocationService, times(1)).revoke("jti", accessToken.expiresAt());
+        verify(refreshTokenService, times(1)).revoke(userId, "refresh_token");
+    }
+}
@@ -0,0 +1,166 @@
+package com.agun.security.service;
+
+import com.agun.security.config.JwtProperties;
+import com.agun.security.constant.Role;
+import com.agun.security.dto.AuthenticationResponse;
+import com.agun.security.dto.DefaultResponse;
+import com.agun.security.dto.LoginRequest;
+import com.agun.security.dto.RegisterRequest;
+import com.agun.security.model.User;
+import com.agun.security.repository.ReactiveRefreshTokenRepository;
+import com.agun.security.repository.ReactiveUserRepository;
+import com.agun.security.security.PasswordHashingExecutor;
+import com.agun.security.security.TokenManager;
+import com.agun.security.security.TokenRevocationService;
+import com.agun.security.security.UserCredentials;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveAuthServiceTest {
+
+    @Mock
+    private ReactiveUserRepository userRepository;
+
+    @Mock
+    private ReactiveRefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private TokenManager tokenManager;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private TokenRevocationService revocationService;
+
+    private final PasswordHashingExecutor hashingExecutor = new PasswordHashingExecutor(1, 10, Duration.ofSeconds(1));
+
+    private ReactiveAuthService underTest;
+
+    @BeforeEach
+    void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setRefreshTokenTtl(Duration.ofDays(14));
+        underTest = new ReactiveAuthService(userRepository, refreshTokenRepository, passwordEncoder, tokenManager,
+                hashingExecutor, refreshTokenService, revocationService, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hashingExecutor.shutdown();
+    }
+
+    @Test
+    void itShouldRegisterWithNormalizedEmail() {
+        // Given
+        RegisterRequest request = new RegisterRequest("John", "Doe", " Test@Example.com ", "plainPassword");
+        given(passwordEncoder.encode("plainPassword")).willReturn("hashedPassword");
+        given(userRepository.insert(any(User.class))).willReturn(Mono.just(true));
+        given(tokenManager.generateToken(any(User.class))).willReturn("access_token");
+        given(refreshTokenRepository.insert(any(), anyString(), any(), any())).willReturn(Mono.empty());
+
+        // When
+        DefaultResponse<AuthenticationResponse> response = underTest.register(request).block();
+
+        // Then
+        ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
+        then(userRepository).should().insert(userCaptor.capture());
+        assertThat(userCaptor.getValue().getEmail()).isEqualTo("test@example.com");
+        assertThat(userCaptor.getValue().getPassword()).isEqualTo("hashedPassword");
+        assertThat(response.getMessage()).isEqualTo("CREATED");
+        assertThat(response.getData().get(0).getToken()).isEqualTo("access_token");
+        assertThat(response.getData().get(0).getRefreshToken()).isNotBlank();
+    }
+
+    @Test
+    void itShouldRejectTakenEmail() {
+        // Given
+        RegisterRequest request = new RegisterRequest("John", "Doe", "test@example.com", "plainPassword");
+        given(passwordEncoder.encode("plainPassword")).willReturn("hashedPassword");
+        given(userRepository.insert(any(User.class))).willReturn(Mono.just(false));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.register(request).block())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Username already taken");
+        then(refreshTokenRepository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void itShouldRejectWrongPassword() {
+        // Given
+        UserCredentials user = credentials("hashedPassword");
+        given(userRepository.findCredentialsByEmail("test@example.com")).willReturn(Mono.just(user));
+        given(passwordEncoder.matches("wrongPassword", "hashedPassword")).willReturn(false);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.login(new LoginRequest("test@example.com", "wrongPassword")).block())
+                .isInstanceOf(BadCredentialsException.class);
+        then(tokenManager).should(never()).generateToken(any(UserCredentials.class));
+    }
+
+    @Test
+    void itShouldHashForUnknownEmailBeforeRejecting() {
+        // Given
+        given(userRepository.findCredentialsByEmail("nobody@example.com")).willReturn(Mono.empty());
+        given(passwordEncoder.encode(anyString())).willReturn("dummyHash");
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.login(new LoginRequest("nobody@example.com", "password")).block())
+                .isInstanceOf(BadCredentialsException.class);
+        then(passwordEncoder).should().matches("password", "dummyHash");
+    }
+
+    @Test
+    void itShouldUpgradeOutdatedHashOnLogin() {
+        // Given
+        UserCredentials user = credentials("{bcrypt}oldHash");
+        given(userRepository.findCredentialsByEmail("test@example.com")).willReturn(Mono.just(user));
+        given(passwordEncoder.matches("plainPassword", "{bcrypt}oldHash")).willReturn(true);
+        given(passwordEncoder.upgradeEncoding("{bcrypt}oldHash")).willReturn(true);
+        given(passwordEncoder.encode("plainPassword")).willReturn("{bcrypt}newHash");
+        given(userRepository.updatePassword(user.getId(), "{bcrypt}newHash")).willReturn(Mono.empty());
+        given(tokenManager.generateToken(user)).willReturn("access_token");
+        given(refreshTokenRepository.insert(eq(user.getId()), anyString(), any(), any())).willReturn(Mono.empty());
+
+        // When
+        DefaultResponse<AuthenticationResponse> response =
+                underTest.login(new LoginRequest(" Test@Example.com", "plainPassword")).block();
+
+        // Then
+        then(userRepository).should().updatePassword(user.getId(), "{bcrypt}newHash");
+        assertThat(response.getMessage()).isEqualTo("OK");
+        assertThat(response.getData().get(0).getToken()).isEqualTo("access_token");
+    }
+
+    private static UserCredentials credentials(String password) {
+        return new UserCredentials(UUID.randomUUID(), "test@example.com", password, Role.USER);
+    }
+}
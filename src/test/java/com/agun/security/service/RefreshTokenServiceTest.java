@@ -0,0 +1,153 @@
+package com.agun.security.service;
+
+import com.agun.security.config.JwtProperties;
+import com.agun.security.exception.InvalidTokenException;
+import com.agun.security.model.RefreshToken;
+import com.agun.security.model.User;
+import com.agun.security.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private RefreshTokenUsageRecorder usageRecorder;
+
+    private RefreshTokenService underTest;
+
+    private final User user = User.builder().id(UUID.randomUUID()).email("test@example.com").build();
+
+    @BeforeEach
+    void setUp() {
+        underTest = new RefreshTokenService(refreshTokenRepository, usageRecorder, new JwtProperties());
+    }
+
+    @Test
+    void itShouldStoreOnlyTheTokenHash() {
+        // Given
+        // When
+        String token = underTest.issue(user.getId());
+
+        // Then
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        then(refreshTokenRepository).should().save(captor.capture());
+        assertThat(captor.getValue().getTokenHash()).isEqualTo(RefreshTokenService.hash(token)).isNotEqualTo(token);
+        assertThat(captor.getValue().getUserId()).isEqualTo(user.getId());
+    }
+
+    @Test
+    void itShouldRotateValidToken() {
+        // Given
+        RefreshToken stored = storedToken(Instant.now().plusSeconds(60));
+        given(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("current"))).willReturn(Optional.of(stored));
+        given(refreshTokenRepository.rotate(eq(stored.getId()), eq(RefreshTokenService.hash("current")), anyString(), any(Instant.class)))
+                .willReturn(1);
+
+        // When
+        RefreshTokenService.Rotation rotation = underTest.rotate("current");
+
+        // Then
+        assertThat(rotation.user()).isSameAs(user);
+        assertThat(rotation.refreshToken()).isNotEqualTo("current");
+        then(usageRecorder).should().record(eq(stored.getId()), any(Instant.class));
+        then(refreshTokenRepository).should().markUsed(stored.getId(), RefreshTokenService.hash("current"));
+    }
+
+    @Test
+    void itShouldNotExtendTheSessionPastItsMaximumAge() {
+        // Given
+        RefreshToken stored = storedToken(Instant.now().plusSeconds(60));
+        stored.setCreatedAt(Instant.now().minus(Duration.ofDays(89)));
+        given(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("current"))).willReturn(Optional.of(stored));
+        given(refreshTokenRepository.rotate(any(), any(), any(), any())).willReturn(1);
+
+        // When
+        underTest.rotate("current");
+
+        // Then
+        ArgumentCaptor<Instant> expiresAt = ArgumentCaptor.forClass(Instant.class);
+        then(refreshTokenRepository).should().rotate(any(), any(), any(), expiresAt.capture());
+        assertThat(expiresAt.getValue()).isEqualTo(stored.getCreatedAt().plus(Duration.ofDays(90)));
+    }
+
+    @Test
+    void itShouldRevokeTheSessionWhenARotatedTokenIsReused() {
+        // Given
+        UUID sessionId = UUID.randomUUID();
+        given(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("current"))).willReturn(Optional.empty());
+        given(refreshTokenRepository.findIdByUsedTokenHash(RefreshTokenService.hash("current"))).willReturn(Optional.of(sessionId));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.rotate("current")).isInstanceOf(InvalidTokenException.class);
+        then(refreshTokenRepository).should().deleteSession(sessionId);
+    }
+
+    @Test
+    void itShouldOnlyRevokeTheCallersOwnToken() {
+        // Given
+        // When
+        underTest.revoke(user.getId(), "current");
+
+        // Then
+        then(refreshTokenRepository).should().deleteByTokenHashAndUserId(RefreshTokenService.hash("current"), user.getId());
+    }
+
+    @Test
+    void itShouldRejectExpiredToken() {
+        // Given
+        RefreshToken stored = storedToken(Instant.now().minusSeconds(1));
+        given(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("current"))).willReturn(Optional.of(stored));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.rotate("current")).isInstanceOf(InvalidTokenException.class);
+        then(refreshTokenRepository).should(never()).rotate(any(), any(), any(), any());
+    }
+
+    @Test
+    void itShouldRejectTokenRotatedConcurrently() {
+        // Given
+        RefreshToken stored = storedToken(Instant.now().plusSeconds(60));
+        given(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("current"))).willReturn(Optional.of(stored));
+        given(refreshTokenRepository.rotate(any(), any(), any(), any())).willReturn(0);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.rotate("current")).isInstanceOf(InvalidTokenException.class);
+        then(usageRecorder).should(never()).record(any(), any());
+    }
+
+    private RefreshToken storedToken(Instant expiresAt) {
+        return RefreshToken.builder()
+                .id(UUID.randomUUID())
+                .userId(user.getId())
+                .user(user)
+                .tokenHash(RefreshTokenService.hash("current"))
+                .createdAt(Instant.now())
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
@@ -0,0 +1,229 @@
+package com.agun.security.service;
+
+import com.agun.security.config.PasswordProperties;
+import com.agun.security.config.UserImportProperties;
+import com.agun.security.dto.UserImportReport;
+import com.agun.security.dto.UserImportResult;
+import com.agun.security.security.PasswordHashingExecutor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class UserImportServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    private PasswordHashingExecutor hashingExecutor;
+
+    private final List<String> insertedEmails = new ArrayList<>();
+    private final List<String> insertedHashes = new ArrayList<>();
+
+    private UserImportService underTest;
+
+    @BeforeEach
+    void setUp() {
+        hashingExecutor = new PasswordHashingExecutor(2, 10, Duration.ofMillis(10));
+        UserImportProperties importProperties = new UserImportProperties();
+        importProperties.setBatchSize(2);
+        underTest = new UserImportService(jdbcTemplate, transactionManager, passwordEncoder, hashingExecutor,
+                new ObjectMapper(), importProperties, new PasswordProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        hashingExecutor.shutdown();
+    }
+
+    @Test
+    void itShouldReportEveryCsvRow() throws Exception {
+        // Given rows that are valid, invalid, repeated, already registered, pre-hashed and raced
+        String csv = """
+                email,password,passwordHash,firstName,lastName,role
+                New@Example.com,secret,,New,User,
+                not-an-email,secret,,,,
+                new@example.com,other,,,,
+                taken@example.com,secret,,,,
+                hashed@example.com,,{bcrypt}$2a$10$abc,,,admin
+                raced@example.com,secret,,,,
+                """;
+
+        // ... one email is in the database already
+        given(jdbcTemplate.query(any(PreparedStatementCreator.class), ArgumentMatchers.<RowMapper<String>>any()))
+                .willReturn(List.of("taken@example.com"), List.of());
+        given(passwordEncoder.encode(anyString())).willAnswer(invocation -> "{bcrypt}" + invocation.getArgument(0));
+
+        // ... and one is registered between the check and the insert
+        givenInsertsExcept("raced@example.com");
+
+        // When
+        UserImportReport report = underTest.importCsv(stream(csv));
+
+        // Then
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getDuplicates()).isEqualTo(3);
+        assertThat(report.getInvalid()).isEqualTo(1);
+        assertThat(report.getRows()).extracting(UserImportResult::getStatus).containsExactly(
+                UserImportResult.Status.IMPORTED,
+                UserImportResult.Status.INVALID,
+                UserImportResult.Status.DUPLICATE,
+                UserImportResult.Status.DUPLICATE,
+                UserImportResult.Status.IMPORTED,
+                UserImportResult.Status.DUPLICATE);
+        assertThat(insertedEmails).containsExactly("new@example.com", "hashed@example.com", "raced@example.com");
+        assertThat(insertedHashes).containsExactly("{bcrypt}secret", "{bcrypt}$2a$10$abc", "{bcrypt}secret");
+
+        // Verify one duplicate query per chunk, and no hashing for known or pre-hashed users
+        verify(jdbcTemplate, times(2)).query(any(PreparedStatementCreator.class), ArgumentMatchers.<RowMapper<String>>any());
+        verify(passwordEncoder, times(2)).encode("secret");
+        verify(passwordEncoder, never()).encode("other");
+    }
+
+    @Test
+    void itShouldKeepImportedRowsWhenJsonIsTruncated() throws Exception {
+        // Given
+        String json = """
+                [{"email":"a@example.com","password":"secret"},
+                 {"email":"b@example.com","password":"secret"},
+                 {"email":"c@example.com","pass""";
+        given(jdbcTemplate.query(any(PreparedStatementCreator.class), ArgumentMatchers.<RowMapper<String>>any()))
+                .willReturn(List.of());
+        given(passwordEncoder.encode(anyString())).willReturn("{bcrypt}hash");
+        givenInsertsExcept();
+
+        // When
+        UserImportReport report = underTest.importJson(stream(json));
+
+        // Then
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getInvalid()).isEqualTo(1);
+        assertThat(report.getRows().get(2).getRow()).isEqualTo(3);
+        assertThat(report.getRows().get(2).getMessage()).startsWith("Unreadable");
+        assertThat(insertedEmails).containsExactly("a@example.com", "b@example.com");
+    }
+
+    @Test
+    void itShouldRejectHashesNoEncoderKnows() throws Exception {
+        // Given
+        String json = """
+                [{"email":"plain@example.com","passwordHash":"{noop}secret"},
+                 {"email":"md5@example.com","passwordHash":"{MD5}5ebe2294ecd0e0f08eab7690d2a6ee69"},
+                 {"email":"empty@example.com","passwordHash":"{bcrypt}"},
+                 {"email":"pbkdf2@example.com","passwordHash":"{pbkdf2@SpringSecurity_v5_8}abcdef"}]""";
+        given(jdbcTemplate.query(any(PreparedStatementCreator.class), ArgumentMatchers.<RowMapper<String>>any()))
+                .willReturn(List.of());
+        givenInsertsExcept();
+
+        // When
+        UserImportReport report = underTest.importJson(stream(json));
+
+        // Then
+        assertThat(report.getInvalid()).isEqualTo(3);
+        assertThat(report.getRows().get(0).getMessage()).isEqualTo("Unsupported passwordHash {noop}");
+        assertThat(insertedEmails).containsExactly("pbkdf2@example.com");
+    }
+
+    @Test
+    void itShouldReportARowWhoseHashingFailedAndImportTheRest() throws Exception {
+        // Given
+        String json = """
+                [{"email":"a@example.com","password":"secret"},
+                 {"email":"b@example.com","password":"broken"},
+                 {"email":"c@example.com","password":"secret"}]""";
+        given(jdbcTemplate.query(any(PreparedStatementCreator.class), ArgumentMatchers.<RowMapper<String>>any()))
+                .willReturn(List.of());
+        given(passwordEncoder.encode("secret")).willReturn("{bcrypt}hash");
+        given(passwordEncoder.encode("broken")).willThrow(new IllegalStateException("encoder failure"));
+        givenInsertsExcept();
+
+        // When
+        UserImportReport report = underTest.importJson(stream(json));
+
+        // Then
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getRows()).extracting(UserImportResult::getStatus).containsExactly(
+                UserImportResult.Status.IMPORTED,
+                UserImportResult.Status.INVALID,
+                UserImportResult.Status.IMPORTED);
+        assertThat(insertedEmails).containsExactly("a@example.com", "c@example.com");
+    }
+
+    @Test
+    void itShouldNotTouchTheDatabaseForAnEmptyImport() throws Exception {
+        // Given
+        // When
+        UserImportReport report = underTest.importJson(stream("[]"));
+
+        // Then
+        assertThat(report.getRows()).isEmpty();
+        then(jdbcTemplate).shouldHaveNoInteractions();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenInsertsExcept(String... conflicting) {
+        Set<String> conflicts = Set.of(conflicting);
+        given(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .willAnswer(invocation -> {
+                    Collection<Object> rows = invocation.getArgument(1);
+                    ParameterizedPreparedStatementSetter<Object> setter = invocation.getArgument(3);
+                    int[] counts = new int[rows.size()];
+                    int i = 0;
+                    for (Object row : rows) {
+                        PreparedStatement statement = mock(PreparedStatement.class);
+                        setter.setValues(statement, row);
+                        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+                        verify(statement, times(5)).setString(anyInt(), captor.capture());
+                        List<String> values = captor.getAllValues();
+                        insertedEmails.add(values.get(2));
+                        insertedHashes.add(values.get(3));
+                        counts[i++] = conflicts.contains(values.get(2)) ? 0 : 1;
+                    }
+                    return new int[][]{counts};
+                });
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}